@@ -0,0 +1,115 @@
+package com.joonsang.example.benchmark;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.joonsang.example.dto.OrderQueryDto;
+import com.joonsang.example.repository.OrderRepository;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * /api/v5/orders 응답 형식 비교 (JSON / CBOR / Smile, BinaryFormatConfig)
+ *
+ * - encode : 서버가 응답을 만드는 비용 (List<OrderQueryDto> -> byte[])
+ * - decode : 클라이언트가 응답을 읽는 비용 (byte[] 의 토큰을 끝까지 읽으면서 문자열 / 숫자 값을 꺼낸다)
+ * - 응답 크기는 결과 표의 보조 지표 payloadBytes 로 출력한다. (PayloadSize)
+ * - 애플리케이션이 쓰는 ObjectMapper / 컨버터를 그대로 사용한다. (json.performance-mode 설정 포함)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class BinaryFormatBenchmark {
+
+    @Param({"10000"})
+    int orders;
+
+    @Param({"2"})
+    int itemsPerOrder;
+
+    @Param({"100"})
+    int members;
+
+    @Param({"json", "cbor", "smile"})
+    String format;
+
+    ConfigurableApplicationContext context;
+    ObjectMapper objectMapper;
+    List<OrderQueryDto> result;
+    byte[] payload;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        context = OrderBenchmarkFixture.start();
+        OrderBenchmarkFixture.seed(context, members, orders, itemsPerOrder);
+        if (format.equals("cbor")) {
+            objectMapper = context.getBean(MappingJackson2CborHttpMessageConverter.class).getObjectMapper();
+        } else if (format.equals("smile")) {
+            objectMapper = context.getBean(MappingJackson2SmileHttpMessageConverter.class).getObjectMapper();
+        } else {
+            objectMapper = context.getBean(ObjectMapper.class);
+        }
+
+        TransactionTemplate readOnlyTx = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        readOnlyTx.setReadOnly(true);
+        result = readOnlyTx.execute(status -> context.getBean(OrderRepository.class).findAllByDto_optimization());
+        payload = objectMapper.writeValueAsBytes(result);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public byte[] encode(PayloadSize size) throws Exception {
+        byte[] encoded = objectMapper.writeValueAsBytes(result);
+        size.payloadBytes = encoded.length;
+        return encoded;
+    }
+
+    @Benchmark
+    public void decode(PayloadSize size, Blackhole bh) throws Exception {
+        size.payloadBytes = payload.length;
+        try (JsonParser parser = objectMapper.getFactory().createParser(payload)) {
+            JsonToken token;
+            while ((token = parser.nextToken()) != null) {
+                if (token == JsonToken.VALUE_STRING || token == JsonToken.FIELD_NAME) {
+                    bh.consume(parser.getText());
+                } else if (token == JsonToken.VALUE_NUMBER_INT) {
+                    bh.consume(parser.getLongValue());
+                }
+            }
+        }
+    }
+
+    /**
+     * 응답 크기 (결과 표에 보조 지표로 출력)
+     *
+     * - 합계가 아니라 마지막 호출의 크기를 그대로 둔다. (같은 데이터이므로 호출마다 같다)
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class PayloadSize {
+
+        public long payloadBytes;
+    }
+}
@@ -0,0 +1,100 @@
+package com.joonsang.example.benchmark;
+
+import com.joonsang.example.domain.DeliveryStatus;
+import com.joonsang.example.dto.DeliveryStatusChangeResult;
+import com.joonsang.example.repository.DeliveryRepository;
+import com.joonsang.example.service.DeliveryService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 배송 상태 일괄 변경 (READY -> COMP) 전략 비교, 호출 1번 = 배송 deliveries 건
+ *
+ * - dirtyChecking : 변경 전 방식. chunk 마다 트랜잭션 1개, 배송을 1건씩 조회해서 setStatus (변경 감지 + batch UPDATE)
+ * - bulkUpdate    : DeliveryService.changeStatus. chunk 마다 조회 1번 + UPDATE 1번
+ * - 매 호출 전에 JDBC 로 전부 READY 로 되돌린다. 초당 처리 건수 = deliveries / 호출 시간
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class DeliveryStatusBenchmark {
+
+    private static final long SEED_ID_START = 1_000_000_000L;
+    private static final int CHUNK_SIZE = 1_000;
+
+    @Param({"100000"})
+    int deliveries;
+
+    ConfigurableApplicationContext context;
+    JdbcTemplate jdbc;
+    TransactionTemplate transactionTemplate;
+    DeliveryRepository deliveryRepository;
+    DeliveryService deliveryService;
+    List<Long> deliveryIds;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = OrderBenchmarkFixture.start("delivery.bulk.chunk-size=" + CHUNK_SIZE);
+        OrderBenchmarkFixture.seed(context, 100, deliveries, 1);
+        jdbc = context.getBean(JdbcTemplate.class);
+        transactionTemplate = context.getBean(TransactionTemplate.class);
+        deliveryRepository = context.getBean(DeliveryRepository.class);
+        deliveryService = context.getBean(DeliveryService.class);
+
+        deliveryIds = new ArrayList<>(deliveries);
+        for (int i = 0; i < deliveries; i++) {
+            deliveryIds.add(SEED_ID_START + i);
+        }
+    }
+
+    @Setup(Level.Invocation)
+    public void reset() {
+        jdbc.update("update delivery set status = 'READY'");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    /** 변경 전 : 1건씩 조회 + 변경 감지 */
+    @Benchmark
+    public int dirtyChecking() {
+        int changed = 0;
+        for (int from = 0; from < deliveryIds.size(); from += CHUNK_SIZE) {
+            List<Long> chunk = deliveryIds.subList(from, Math.min(from + CHUNK_SIZE, deliveryIds.size()));
+            changed += transactionTemplate.execute(status -> {
+                chunk.forEach(id -> deliveryRepository.findOne(id).setStatus(DeliveryStatus.COMP));
+                return chunk.size();
+            });
+        }
+        return changed;
+    }
+
+    /** 변경 후 : chunk 단위 UPDATE */
+    @Benchmark
+    public DeliveryStatusChangeResult bulkUpdate() {
+        return deliveryService.changeStatus(deliveryIds, DeliveryStatus.COMP);
+    }
+}
@@ -0,0 +1,117 @@
+package com.joonsang.example.benchmark;
+
+import com.joonsang.example.domain.Address;
+import com.joonsang.example.domain.Member;
+import com.joonsang.example.domain.item.Book;
+import com.joonsang.example.dto.MemberJoinResult;
+import com.joonsang.example.dto.OrderLineDto;
+import com.joonsang.example.service.ItemService;
+import com.joonsang.example.service.MemberService;
+import com.joonsang.example.service.OrderService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 시퀀스 할당 크기에 따른 insert 처리량 (inserts/s 가 아니라 주문/s, 주문 1건 = insert 3번)
+ *
+ * - incrementSize = 1  : insert 마다 시퀀스 조회 (변경 전)
+ * - incrementSize = 50 : pooled-lo 로 50 개씩 메모리에서 채번 + JDBC batch insert (변경 후)
+ * - memberJoinLoop / memberJoinAll : 회원 1,000 명 가입을 join 반복과 대량 가입(joinAll)으로 비교 (회원/s)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class InsertBenchmark {
+
+    private static final int ORDERS_PER_INVOCATION = 1_000;
+    private static final int MEMBERS_PER_INVOCATION = 1_000;
+
+    @Param({"1", "50"})
+    int incrementSize;
+
+    ConfigurableApplicationContext context;
+    OrderService orderService;
+    MemberService memberService;
+    List<OrderLineDto> lines;
+    int memberSeq;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = OrderBenchmarkFixture.start("spring.jpa.properties.id.sequence.increment_size=" + incrementSize);
+        orderService = context.getBean(OrderService.class);
+        memberService = context.getBean(MemberService.class);
+
+        Book book = new Book();
+        book.setName("benchmark book");
+        book.setPrice(10000);
+        book.setStockQuantity(Integer.MAX_VALUE);
+        context.getBean(ItemService.class).saveItem(book);
+
+        Long memberId = memberService.join(newMember());
+        lines = new ArrayList<>();
+        for (int i = 0; i < ORDERS_PER_INVOCATION; i++) {
+            lines.add(new OrderLineDto(memberId, book.getId(), 1));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    /** 회원가입 : member insert 1번 */
+    @Benchmark
+    public Long memberJoin(QueryCounts counts) {
+        return memberService.join(newMember());
+    }
+
+    /** 회원 1,000 명 : join 1,000 번 (트랜잭션 1,000 개) */
+    @Benchmark
+    @OperationsPerInvocation(MEMBERS_PER_INVOCATION)
+    public List<Long> memberJoinLoop(QueryCounts counts) {
+        List<Long> ids = new ArrayList<>(MEMBERS_PER_INVOCATION);
+        for (int i = 0; i < MEMBERS_PER_INVOCATION; i++) {
+            ids.add(memberService.join(newMember()));
+        }
+        return ids;
+    }
+
+    /** 회원 1,000 명 : joinAll 1 번 (chunk 단위 where name in + batch insert) */
+    @Benchmark
+    @OperationsPerInvocation(MEMBERS_PER_INVOCATION)
+    public List<MemberJoinResult> memberJoinAll(QueryCounts counts) {
+        List<Member> members = new ArrayList<>(MEMBERS_PER_INVOCATION);
+        for (int i = 0; i < MEMBERS_PER_INVOCATION; i++) {
+            members.add(newMember());
+        }
+        return memberService.joinAll(members.iterator());
+    }
+
+    /** 대량 주문 : 주문 1,000 건 (orders / delivery / order_item insert + item update) */
+    @Benchmark
+    @OperationsPerInvocation(ORDERS_PER_INVOCATION)
+    public List<Long> bulkOrders(QueryCounts counts) {
+        return orderService.orders(lines);
+    }
+
+    private Member newMember() {
+        Member member = new Member();
+        member.setName("bench-member-" + memberSeq++);
+        member.setAddress(new Address("city", "street", "zipcode"));
+        return member;
+    }
+}
@@ -0,0 +1,105 @@
+package com.joonsang.example.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.module.afterburner.AfterburnerModule;
+import com.joonsang.example.api.OrderJsonModule;
+import com.joonsang.example.domain.Address;
+import com.joonsang.example.domain.OrderStatus;
+import com.joonsang.example.dto.OrderFlatDto;
+import com.joonsang.example.dto.OrderItemQueryDto;
+import com.joonsang.example.dto.OrderQueryDto;
+import com.joonsang.example.dto.OrderSimpleQueryDto;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 주문 DTO 직렬화 처리량 (json.performance-mode 비교, DB 조회 X)
+ *
+ * - mapper
+ *   : reflective  - 기본 (스프링 부트 기본 설정)
+ *   : afterburner - AfterburnerModule
+ *   : serializers - OrderJsonModule (json.performance-mode = true, 기본 설정)
+ * - 호출 1번 = orders 건 응답 1번 직렬화. 할당량은 -prof gc 의 gc.alloc.rate.norm 으로 본다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class JsonSerializationBenchmark {
+
+    @Param({"10000"})
+    int orders;
+
+    @Param({"2"})
+    int itemsPerOrder;
+
+    @Param({"reflective", "afterburner", "serializers"})
+    String mapper;
+
+    ObjectMapper objectMapper;
+    List<OrderQueryDto> orderQueryDtos;
+    List<OrderSimpleQueryDto> orderSimpleQueryDtos;
+    List<OrderFlatDto> orderFlatDtos;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Jackson2ObjectMapperBuilder builder = Jackson2ObjectMapperBuilder.json()
+                .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        if (mapper.equals("afterburner")) {
+            builder.modulesToInstall(new AfterburnerModule());
+        } else if (mapper.equals("serializers")) {
+            builder.modulesToInstall(new OrderJsonModule());
+        }
+        objectMapper = builder.build();
+
+        orderQueryDtos = new ArrayList<>(orders);
+        orderSimpleQueryDtos = new ArrayList<>(orders);
+        orderFlatDtos = new ArrayList<>(orders * itemsPerOrder);
+        LocalDateTime orderDate = LocalDateTime.now();
+        for (long orderId = 1; orderId <= orders; orderId++) {
+            Address address = new Address("city" + orderId % 100, "street" + orderId % 100, "zipcode" + orderId % 100);
+            String name = "member" + orderId % 100;
+            List<OrderItemQueryDto> orderItems = new ArrayList<>(itemsPerOrder);
+            for (int i = 0; i < itemsPerOrder; i++) {
+                String itemName = "book" + (orderId + i) % 100;
+                orderItems.add(new OrderItemQueryDto(orderId, itemName, 10000 + i, i + 1));
+                orderFlatDtos.add(new OrderFlatDto(orderId, name, orderDate, OrderStatus.ORDER, address, itemName, 10000 + i, i + 1));
+            }
+            OrderQueryDto order = new OrderQueryDto(orderId, name, orderDate, OrderStatus.ORDER, address);
+            order.setOrderItems(orderItems);
+            orderQueryDtos.add(order);
+            orderSimpleQueryDtos.add(new OrderSimpleQueryDto(orderId, name, orderDate, OrderStatus.ORDER, address));
+        }
+    }
+
+    /** V5 응답 (OrderQueryDto + OrderItemQueryDto) */
+    @Benchmark
+    public byte[] orderQueryDtos() throws Exception {
+        return objectMapper.writeValueAsBytes(orderQueryDtos);
+    }
+
+    /** V4 simple 응답 (OrderSimpleQueryDto) */
+    @Benchmark
+    public byte[] orderSimpleQueryDtos() throws Exception {
+        return objectMapper.writeValueAsBytes(orderSimpleQueryDtos);
+    }
+
+    /** V6 flat row (OrderFlatDto) */
+    @Benchmark
+    public byte[] orderFlatDtos() throws Exception {
+        return objectMapper.writeValueAsBytes(orderFlatDtos);
+    }
+}
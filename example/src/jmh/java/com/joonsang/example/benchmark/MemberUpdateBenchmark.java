@@ -0,0 +1,80 @@
+package com.joonsang.example.benchmark;
+
+import com.joonsang.example.domain.Member;
+import com.joonsang.example.service.MemberService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 회원 이름 변경 (PUT /api/v2/members/{id}) 전략 비교
+ *
+ * - updateAndFind : 변경 전 방식. update (조회 + 변경 감지) 후 다시 findOne (select 2번 + update 1번, 트랜잭션 2개)
+ * - updateName    : UPDATE 1번 (트랜잭션 1개)
+ * - 쓰레드마다 서로 다른 회원을 변경한다. (row 락 경합 X)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Threads(8)
+public class MemberUpdateBenchmark {
+
+    private static final long SEED_ID_START = 1_000_000_000L;
+    private static final int MEMBERS = 64;
+
+    ConfigurableApplicationContext context;
+    MemberService memberService;
+    final AtomicInteger nextMember = new AtomicInteger();
+
+    @State(Scope.Thread)
+    public static class Target {
+        long memberId;
+        int seq;
+
+        @Setup(Level.Trial)
+        public void pick(MemberUpdateBenchmark benchmark) {
+            memberId = SEED_ID_START + benchmark.nextMember.getAndIncrement() % MEMBERS;
+        }
+
+        String nextName() {
+            return "member" + memberId + "-" + seq++;
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = OrderBenchmarkFixture.start();
+        OrderBenchmarkFixture.seed(context, MEMBERS, 0, 0);
+        memberService = context.getBean(MemberService.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    /** 변경 전 : update + findOne */
+    @Benchmark
+    public String updateAndFind(Target target, QueryCounts counts) {
+        memberService.update(target.memberId, target.nextName());
+        Member member = memberService.findOne(target.memberId);
+        return member.getName();
+    }
+
+    /** 변경 후 : UPDATE 1번 */
+    @Benchmark
+    public boolean updateName(Target target, QueryCounts counts) {
+        return memberService.updateName(target.memberId, target.nextName());
+    }
+}
@@ -0,0 +1,101 @@
+package com.joonsang.example.benchmark;
+
+import com.joonsang.example.ExampleApplication;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 벤치마크용 애플리케이션 / 데이터 준비
+ *
+ * - 매 Trial 마다 독립된 in-memory H2 에 스키마를 새로 만든다.
+ * - 대량 데이터는 JPA persist 대신 JDBC batch insert 로 넣는다. (준비 시간 단축, 영속성 컨텍스트 메모리 사용 X)
+ * - ID 는 InitDb 가 넣는 데이터와 겹치지 않도록 SEED_ID_START 부터 사용한다.
+ */
+public class OrderBenchmarkFixture {
+
+    private static final long SEED_ID_START = 1_000_000_000L;
+    private static final int ITEM_COUNT = 100;
+    private static final int BATCH_SIZE = 1_000;
+
+    public static ConfigurableApplicationContext start(String... properties) {
+        // application.properties 보다 우선하도록 커맨드라인 인자로 넘긴다.
+        List<String> args = new ArrayList<>();
+        args.add("--spring.datasource.url=jdbc:h2:mem:bench-" + System.nanoTime() + ";DB_CLOSE_DELAY=-1");
+        args.add("--spring.jpa.hibernate.ddl-auto=create");
+        args.add("--spring.jpa.properties.hibernate.show_sql=false");
+        args.add("--logging.level.org.hibernate.SQL=warn");
+        // 조회 전략 비교이므로 주문 목록 캐시는 끈다. (JDBC 로 넣은 데이터는 캐시 무효화 이벤트도 발생하지 않는다)
+        args.add("--spring.cache.type=none");
+        for (String property : properties) {
+            args.add("--" + property);
+        }
+        return new SpringApplicationBuilder(ExampleApplication.class)
+                .web(WebApplicationType.NONE)
+                .run(args.toArray(new String[0]));
+    }
+
+    /**
+     * 회원 members 명, 상품 100 개, 주문 orders 건 (주문당 OrderItem itemsPerOrder 개)
+     */
+    public static void seed(ConfigurableApplicationContext context, int members, int orders, int itemsPerOrder) {
+        JdbcTemplate jdbc = context.getBean(JdbcTemplate.class);
+
+        List<Object[]> rows = new ArrayList<>();
+        for (int i = 0; i < members; i++) {
+            rows.add(new Object[]{SEED_ID_START + i, "member" + i, "city" + i, "street" + i, "zipcode" + i});
+            rows = flushIfFull(jdbc, "insert into member (member_id, name, city, street, zipcode) values (?, ?, ?, ?, ?)", rows);
+        }
+        flush(jdbc, "insert into member (member_id, name, city, street, zipcode) values (?, ?, ?, ?, ?)", rows);
+
+        rows = new ArrayList<>();
+        for (int i = 0; i < ITEM_COUNT; i++) {
+            rows.add(new Object[]{"B", SEED_ID_START + i, "book" + i, 10000 + i, Integer.MAX_VALUE});
+        }
+        flush(jdbc, "insert into item (dtype, item_id, name, price, stock_quantity, version) values (?, ?, ?, ?, ?, 0)", rows);
+
+        String deliverySql = "insert into delivery (delivery_id, city, street, zipcode, status) values (?, ?, ?, ?, 'READY')";
+        String orderSql = "insert into orders (order_id, member_id, delivery_id, order_date, status) values (?, ?, ?, ?, 'ORDER')";
+        String orderItemSql = "insert into order_item (order_item_id, order_id, item_id, order_price, count) values (?, ?, ?, ?, ?)";
+        List<Object[]> deliveries = new ArrayList<>();
+        List<Object[]> orderRows = new ArrayList<>();
+        List<Object[]> orderItems = new ArrayList<>();
+        Timestamp orderDate = Timestamp.valueOf(LocalDateTime.now());
+        for (int i = 0; i < orders; i++) {
+            long orderId = SEED_ID_START + i;
+            int member = i % members;
+            deliveries.add(new Object[]{orderId, "city" + member, "street" + member, "zipcode" + member});
+            orderRows.add(new Object[]{orderId, SEED_ID_START + member, orderId, orderDate});
+            for (int j = 0; j < itemsPerOrder; j++) {
+                long orderItemId = SEED_ID_START + (long) i * itemsPerOrder + j;
+                int item = (i + j) % ITEM_COUNT;
+                orderItems.add(new Object[]{orderItemId, orderId, SEED_ID_START + item, 10000 + item, j + 1});
+            }
+            if (orderRows.size() == BATCH_SIZE) {
+                deliveries = flush(jdbc, deliverySql, deliveries);
+                orderRows = flush(jdbc, orderSql, orderRows);
+                orderItems = flush(jdbc, orderItemSql, orderItems);
+            }
+        }
+        flush(jdbc, deliverySql, deliveries);
+        flush(jdbc, orderSql, orderRows);
+        flush(jdbc, orderItemSql, orderItems);
+    }
+
+    private static List<Object[]> flushIfFull(JdbcTemplate jdbc, String sql, List<Object[]> rows) {
+        return rows.size() < BATCH_SIZE ? rows : flush(jdbc, sql, rows);
+    }
+
+    private static List<Object[]> flush(JdbcTemplate jdbc, String sql, List<Object[]> rows) {
+        if (!rows.isEmpty()) {
+            jdbc.batchUpdate(sql, rows);
+        }
+        return new ArrayList<>();
+    }
+}
@@ -0,0 +1,64 @@
+package com.joonsang.example.benchmark;
+
+import com.joonsang.example.repository.OrderRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * V5 (findAllByDto_optimization) 의 OrderItem IN 절 chunk 크기 비교
+ *
+ * - 기본은 1천 건만 실행한다. 10만 / 100만 건은 준비 시간이 길어서 직접 지정해서 실행
+ *   java -jar build/libs/example-0.0.1-SNAPSHOT-jmh.jar OrderItemChunkBenchmark -p orders=1000,100000,1000000
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class OrderItemChunkBenchmark {
+
+    @Param({"1000"})
+    int orders;
+
+    @Param({"50", "100", "500", "1000"})
+    int chunkSize;
+
+    @Param({"false", "true"})
+    boolean parallel;
+
+    ConfigurableApplicationContext context;
+    OrderRepository orderRepository;
+    TransactionTemplate readOnlyTx;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = OrderBenchmarkFixture.start(
+                "order.query.in-chunk-size=" + chunkSize,
+                "order.query.parallel-chunks=" + parallel);
+        OrderBenchmarkFixture.seed(context, 100, orders, 2);
+        orderRepository = context.getBean(OrderRepository.class);
+        readOnlyTx = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        readOnlyTx.setReadOnly(true);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Object findAllByDto_optimization(QueryCounts counts) {
+        return readOnlyTx.execute(status -> orderRepository.findAllByDto_optimization());
+    }
+}
@@ -0,0 +1,79 @@
+package com.joonsang.example.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.joonsang.example.dto.OrderQueryDto;
+import com.joonsang.example.repository.OrderRepository;
+import com.joonsang.example.service.OrderJsonCache;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * V4 / V5 응답 직렬화 비용 비교 (조회 제외, 응답 1번 = 호출 1번)
+ *
+ * - jackson     : 변경 전. 요청마다 ObjectMapper 로 주문 목록 전체를 직렬화
+ * - cachedBytes : 변경 후. 주문별로 캐시 된 JSON 바이트를 이어 붙이기 (캐시가 모두 채워진 상태)
+ * - 호출당 CPU 는 처리량의 역수로, 호출당 할당량은 -prof gc 의 gc.alloc.rate.norm 으로 본다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class OrderJsonBenchmark {
+
+    @Param({"1000", "10000"})
+    int orders;
+
+    @Param({"2"})
+    int itemsPerOrder;
+
+    @Param({"100"})
+    int members;
+
+    ConfigurableApplicationContext context;
+    ObjectMapper objectMapper;
+    OrderJsonCache orderJsonCache;
+    List<OrderQueryDto> result;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = OrderBenchmarkFixture.start();
+        OrderBenchmarkFixture.seed(context, members, orders, itemsPerOrder);
+        objectMapper = context.getBean(ObjectMapper.class);
+        orderJsonCache = context.getBean(OrderJsonCache.class);
+
+        TransactionTemplate readOnlyTx = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        readOnlyTx.setReadOnly(true);
+        result = readOnlyTx.execute(status -> context.getBean(OrderRepository.class).findAllByDto_optimization());
+        orderJsonCache.writeArray(result, orderJsonCache.version());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    /** 변경 전 : 요청마다 전체 직렬화 */
+    @Benchmark
+    public byte[] jackson() throws Exception {
+        return objectMapper.writeValueAsBytes(result);
+    }
+
+    /** 변경 후 : 캐시 된 주문 JSON 이어 붙이기 */
+    @Benchmark
+    public byte[] cachedBytes() {
+        return orderJsonCache.writeArray(result, orderJsonCache.version());
+    }
+}
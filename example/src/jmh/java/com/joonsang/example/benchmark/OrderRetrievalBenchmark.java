@@ -0,0 +1,133 @@
+package com.joonsang.example.benchmark;
+
+import com.joonsang.example.domain.Order;
+import com.joonsang.example.domain.OrderItem;
+import com.joonsang.example.repository.OrderRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 주문 컬렉션 조회 V1 ~ V6 전략 비교
+ *
+ * - 처리량(ops/s), 할당량(-prof gc 의 gc.alloc.rate.norm), 호출당 SQL 수(statements) 를 함께 본다.
+ * - 엔티티를 반환하는 전략은 API 응답을 만들 때처럼 연관 엔티티를 모두 읽어서 Lazy 로딩 비용까지 포함한다.
+ * - 각 호출은 OSIV 처럼 하나의 읽기 전용 트랜잭션 안에서 실행한다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class OrderRetrievalBenchmark {
+
+    @Param({"1000", "10000"})
+    int orders;
+
+    @Param({"2"})
+    int itemsPerOrder;
+
+    @Param({"100"})
+    int members;
+
+    @Param({"100"})
+    int pageSize;
+
+    ConfigurableApplicationContext context;
+    OrderRepository orderRepository;
+    TransactionTemplate readOnlyTx;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = OrderBenchmarkFixture.start();
+        OrderBenchmarkFixture.seed(context, members, orders, itemsPerOrder);
+        orderRepository = context.getBean(OrderRepository.class);
+        readOnlyTx = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        readOnlyTx.setReadOnly(true);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    /** V1, V2 : 엔티티 조회 후 Lazy 로딩 (N+1) */
+    @Benchmark
+    public void v1_findAll(QueryCounts counts, Blackhole bh) {
+        readOnlyTx.executeWithoutResult(status -> orderRepository.findAll().forEach(o -> touch(o, bh)));
+    }
+
+    /** V3 : 컬렉션 fetch join */
+    @Benchmark
+    public void v3_findAllWithItem(QueryCounts counts, Blackhole bh) {
+        readOnlyTx.executeWithoutResult(status -> orderRepository.findAllWithItem().forEach(o -> touch(o, bh)));
+    }
+
+    /** V3.1 : ToOne fetch join + batch fetch, offset 페이징으로 전체 순회 */
+    @Benchmark
+    public void v3_1_findAllWithMemberDelivery_offset(QueryCounts counts, Blackhole bh) {
+        readOnlyTx.executeWithoutResult(status -> {
+            List<Order> page;
+            int offset = 0;
+            do {
+                page = orderRepository.findAllWithMemberDelivery(offset, pageSize);
+                page.forEach(o -> touch(o, bh));
+                offset += pageSize;
+            } while (page.size() == pageSize);
+        });
+    }
+
+    /** V3.1 : ToOne fetch join + batch fetch, keyset 페이징으로 전체 순회 */
+    @Benchmark
+    public void v3_1_findAllWithMemberDelivery_keyset(QueryCounts counts, Blackhole bh) {
+        readOnlyTx.executeWithoutResult(status -> {
+            List<Order> page;
+            Long lastOrderId = null;
+            do {
+                page = orderRepository.findAllWithMemberDelivery(lastOrderId, pageSize);
+                page.forEach(o -> touch(o, bh));
+                if (!page.isEmpty()) {
+                    lastOrderId = page.get(page.size() - 1).getId();
+                }
+            } while (page.size() == pageSize);
+        });
+    }
+
+    /** V4 : DTO 직접 조회, 컬렉션 N 번 */
+    @Benchmark
+    public void v4_findOrderQueryDtos(QueryCounts counts, Blackhole bh) {
+        readOnlyTx.executeWithoutResult(status -> bh.consume(orderRepository.findOrderQueryDtos()));
+    }
+
+    /** V5 : DTO 직접 조회, 컬렉션 IN 절 */
+    @Benchmark
+    public void v5_findAllByDto_optimization(QueryCounts counts, Blackhole bh) {
+        readOnlyTx.executeWithoutResult(status -> bh.consume(orderRepository.findAllByDto_optimization()));
+    }
+
+    /** V6 : flat 조인 1번 + 애플리케이션 group by */
+    @Benchmark
+    public void v6_forEachByDto_flat(QueryCounts counts, Blackhole bh) {
+        readOnlyTx.executeWithoutResult(status -> orderRepository.forEachByDto_flat(bh::consume));
+    }
+
+    private static void touch(Order order, Blackhole bh) {
+        bh.consume(order.getMember().getName());
+        bh.consume(order.getDelivery().getAddress());
+        for (OrderItem orderItem : order.getOrderItems()) {
+            bh.consume(orderItem.getItem().getName());
+        }
+    }
+}
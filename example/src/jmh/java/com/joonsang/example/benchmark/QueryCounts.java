@@ -0,0 +1,35 @@
+package com.joonsang.example.benchmark;
+
+import com.joonsang.example.monitoring.QueryCounter;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * 측정 구간 동안 실행 된 SQL 수 / 엔티티 로딩 수 (결과 표에 보조 지표로 출력)
+ *
+ * - 측정 구간 전체의 합계이므로, 호출당 값은 (statements / 측정 구간의 호출 수) 로 본다.
+ */
+@State(Scope.Thread)
+@AuxCounters(AuxCounters.Type.EVENTS)
+public class QueryCounts {
+
+    public long statements;
+    public long entityLoads;
+
+    @Setup(Level.Invocation)
+    public void start() {
+        QueryCounter.start();
+    }
+
+    @TearDown(Level.Invocation)
+    public void stop() {
+        QueryCounter counter = QueryCounter.current();
+        statements += counter.getStatementCount();
+        entityLoads += counter.getEntityLoadCount();
+        QueryCounter.clear();
+    }
+}
@@ -3,12 +3,14 @@ package com.joonsang.example;
 import com.joonsang.example.domain.*;
 import com.joonsang.example.domain.item.Book;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.DependsOn;
 import org.springframework.stereotype.Component;
 import org.springframework.transaction.annotation.Transactional;
 import javax.annotation.PostConstruct;
 import javax.persistence.EntityManager;
 
 @Component
+@DependsOn("orderSummaryListener")  // 샘플 주문도 읽기 모델(order_summary)에 반영되도록 리스너를 먼저 등록한다.
 @RequiredArgsConstructor
 public class InitDb {
 
@@ -16,9 +18,14 @@ public class InitDb {
 
     /**
      * Application 호출 시점에 실행
+     *
+     * - 기존 DB(ddl-auto = none)에 이미 샘플 데이터가 있으면 건너뛴다. (회원 이름 유니크 제약 조건 uk_member_name)
      */
     @PostConstruct
     public void init() {
+        if (initService.isInitialized()) {
+            return;
+        }
         initService.dbInit1();
         initService.dbInit2();
     }
@@ -29,6 +36,13 @@ public class InitDb {
     static class InitService {
         private final EntityManager em;
 
+        public boolean isInitialized() {
+            return !em.createQuery("select m.id from Member m where m.name in ('userA', 'userB')")
+                    .setMaxResults(1)
+                    .getResultList()
+                    .isEmpty();
+        }
+
         public void dbInit1() {
             // 회원 등록
             Member member = createMember("userA", "서울", "1", "1111");
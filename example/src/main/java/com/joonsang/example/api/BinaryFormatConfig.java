@@ -0,0 +1,75 @@
+package com.joonsang.example.api;
+
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.lang.reflect.Type;
+import java.util.List;
+
+/**
+ * 바이너리 응답 형식 (서비스 간 호출용)
+ *
+ * - Accept: application/cbor            -> CBOR
+ * - Accept: application/x-jackson-smile -> Smile
+ * - 그 외는 JSON (기본)
+ *
+ * - 컨버터는 모든 컨트롤러에 등록되지만, produces 에 CBOR / Smile 을 선언한 핸들러의 응답만 쓴다.
+ *   (주문 V4 / V5 / V6, 회원 V2 목록) 선언하지 않은 핸들러에 CBOR / Smile 을 요청하면 406
+ *   produces 가 없는 핸들러는 응답 가능한 형식을 canWrite(clazz, null) 로 찾으므로, mediaType 이 null 이면 false 를 돌려서 빠진다.
+ * - jackson-dataformat-cbor / smile 이 classpath 에 있으면 스프링 MVC 가 기본 CBOR / Smile 컨버터도 모든 핸들러에 등록하므로 뺀다.
+ * - 응답 전용이다. 요청 Body 는 CBOR / Smile 로 읽지 않는다. (415)
+ *
+ * - 스프링 기본 CBOR / Smile 컨버터는 새 ObjectMapper 를 쓰므로, 스프링 부트가 설정한 Jackson2ObjectMapperBuilder 로 만든다.
+ *   (JSON 과 같은 모듈 / 설정 -> 같은 DTO 가 같은 구조로 인코딩 된다)
+ * - @JsonRawValue (미리 만든 JSON 문자열) 는 바이너리 형식으로 쓸 수 없다. 해당 API 는 JSON 만 제공한다.
+ */
+@Configuration
+public class BinaryFormatConfig implements WebMvcConfigurer {
+
+    public static final String APPLICATION_SMILE_VALUE = "application/x-jackson-smile";
+    public static final MediaType APPLICATION_SMILE = MediaType.valueOf(APPLICATION_SMILE_VALUE);
+
+    @Override
+    public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+        converters.removeIf(converter -> converter.getClass() == MappingJackson2CborHttpMessageConverter.class
+                || converter.getClass() == MappingJackson2SmileHttpMessageConverter.class);
+    }
+
+    @Bean
+    MappingJackson2CborHttpMessageConverter cborHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2CborHttpMessageConverter(builder.factory(new CBORFactory()).build()) {
+            @Override
+            public boolean canRead(Type type, Class<?> contextClass, MediaType mediaType) {
+                return false;
+            }
+
+            @Override
+            public boolean canWrite(Class<?> clazz, MediaType mediaType) {
+                return mediaType != null && super.canWrite(clazz, mediaType);
+            }
+        };
+    }
+
+    @Bean
+    MappingJackson2SmileHttpMessageConverter smileHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2SmileHttpMessageConverter(builder.factory(new SmileFactory()).build()) {
+            @Override
+            public boolean canRead(Type type, Class<?> contextClass, MediaType mediaType) {
+                return false;
+            }
+
+            @Override
+            public boolean canWrite(Class<?> clazz, MediaType mediaType) {
+                return mediaType != null && super.canWrite(clazz, mediaType);
+            }
+        };
+    }
+}
@@ -0,0 +1,41 @@
+package com.joonsang.example.api;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import org.springframework.http.HttpStatus;
+import org.springframework.util.StringUtils;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Keyset(Seek) 페이징 응답
+ *
+ * - nextCursor 를 다음 요청의 cursor 로 그대로 넘긴다. 마지막 페이지면 null.
+ */
+@Data
+@AllArgsConstructor
+class CursorResult<T> {
+    private T data;
+    private String nextCursor;
+
+    /**
+     * 클라이언트가 내부 식별자에 의존하지 않도록 마지막 id 를 불투명한 토큰으로 감싼다.
+     */
+    static String encodeCursor(Long lastId) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(String.valueOf(lastId).getBytes(StandardCharsets.UTF_8));
+    }
+
+    static Long decodeCursor(String cursor) {
+        if (!StringUtils.hasText(cursor)) {
+            return null;
+        }
+        try {
+            return Long.valueOf(new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8));
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "잘못된 cursor 입니다.", e);
+        }
+    }
+}
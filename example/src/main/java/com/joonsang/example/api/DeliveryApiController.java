@@ -0,0 +1,41 @@
+package com.joonsang.example.api;
+
+import com.joonsang.example.domain.DeliveryStatus;
+import com.joonsang.example.dto.DeliveryStatusChangeResult;
+import com.joonsang.example.service.DeliveryService;
+import lombok.Data;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RestController;
+
+import javax.validation.Valid;
+import javax.validation.constraints.NotEmpty;
+import javax.validation.constraints.NotNull;
+import java.util.List;
+
+@RestController
+@RequiredArgsConstructor
+public class DeliveryApiController {
+
+    private final DeliveryService deliveryService;
+
+    /**
+     * 배송 상태 일괄 변경 V1 (예: 출고 완료 READY -> COMP)
+     *
+     * - 배송 id 목록을 chunk 단위 UPDATE 로 변경한다. (엔티티 조회 / 변경 감지 X)
+     * - 변경할 수 없는 배송은 실패시키지 않고 rejectedIds 로 돌려준다.
+     */
+    @PostMapping("/api/v1/deliveries/status")
+    public DeliveryStatusChangeResult changeStatusV1(@RequestBody @Valid ChangeDeliveryStatusRequest request) {
+        return deliveryService.changeStatus(request.getDeliveryIds(), request.getStatus());
+    }
+
+    @Data
+    static class ChangeDeliveryStatusRequest {
+        @NotEmpty
+        private List<Long> deliveryIds;
+        @NotNull
+        private DeliveryStatus status;
+    }
+}
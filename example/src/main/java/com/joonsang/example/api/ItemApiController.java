@@ -0,0 +1,42 @@
+package com.joonsang.example.api;
+
+import com.joonsang.example.dto.ItemQueryDto;
+import com.joonsang.example.service.ItemService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+@RestController
+@RequiredArgsConstructor
+public class ItemApiController {
+
+    private final ItemService itemService;
+
+    /** 상품 목록 한 페이지 최대 건수 */
+    private static final int MAX_LIMIT = 1000;
+
+    /**
+     * 조회 V1: 상품 목록 + 카테고리
+     *
+     * - Keyset(Seek) 페이징 : 첫 페이지는 cursor 없이 요청하고, 응답의 nextCursor 로 다음 페이지를 요청한다.
+     * - 상품 1번 + 카테고리 1번 (한 페이지 상품 id 로 IN 절 조회), 페이지 크기와 상관없이 쿼리 2번
+     */
+    @GetMapping("/api/v1/items")
+    public CursorResult<List<ItemQueryDto>> itemsV1(
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "limit", defaultValue = "100") int limit) {
+        int pageSize = Math.max(1, Math.min(limit, MAX_LIMIT));
+        // 다음 페이지 존재 여부를 알기 위해 1건 더 조회
+        List<ItemQueryDto> items = itemService.findItemPageWithCategories(CursorResult.decodeCursor(cursor), pageSize + 1);
+        boolean hasNext = items.size() > pageSize;
+        if (hasNext) {
+            items = items.subList(0, pageSize);
+        }
+
+        String nextCursor = hasNext ? CursorResult.encodeCursor(items.get(items.size() - 1).getId()) : null;
+        return new CursorResult<>(items, nextCursor);
+    }
+}
@@ -0,0 +1,33 @@
+package com.joonsang.example.api;
+
+import com.fasterxml.jackson.module.afterburner.AfterburnerModule;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * JSON 직렬화 성능 모드 (json.performance-mode = true)
+ *
+ * - Module 빈은 스프링 부트가 ObjectMapper 에 등록한다.
+ * - OrderJsonModule   : 주문 DTO 는 전용 Serializer 로 직접 쓴다.
+ * - AfterburnerModule : public 클래스의 getter / setter 호출을 리플렉션 대신 바이트코드로 생성한 접근자로 바꾼다.
+ *   주문 DTO 는 전용 Serializer 가 쓰므로 효과가 없고 (JsonSerializationBenchmark), 나머지 응답은 크기가 작아서 기본으로 끈다.
+ *   json.afterburner = true 일 때만 등록한다.
+ *
+ * - Blackbird 는 Jackson 2.12 부터 제공되므로 (현재 2.11) Afterburner 를 사용한다.
+ */
+@Configuration
+@ConditionalOnProperty(name = "json.performance-mode", havingValue = "true")
+public class JsonPerformanceConfig {
+
+    @Bean
+    OrderJsonModule orderJsonModule() {
+        return new OrderJsonModule();
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "json.afterburner", havingValue = "true")
+    AfterburnerModule afterburnerModule() {
+        return new AfterburnerModule();
+    }
+}
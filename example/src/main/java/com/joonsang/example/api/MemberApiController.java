@@ -1,13 +1,23 @@
 package com.joonsang.example.api;
 
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.joonsang.example.domain.Member;
+import com.joonsang.example.dto.MemberJoinResult;
+import com.joonsang.example.dto.MemberQueryDto;
 import com.joonsang.example.service.MemberService;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
 
 import javax.validation.Valid;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Iterator;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -16,6 +26,10 @@ import java.util.stream.Collectors;
 public class MemberApiController {
 
     private final MemberService memberService;
+    private final ObjectMapper objectMapper;
+
+    /** 회원 목록 한 페이지 최대 건수 */
+    private static final int MAX_LIMIT = 1000;
 
     /**
      * 등록 V1: 요청 값으로 Member 엔티티를 직접 받는다.
@@ -50,13 +64,57 @@ public class MemberApiController {
     }
 
     /**
-     * 수정 V2
+     * 대량 등록 V2: 회원 목록(JSON 배열)을 한 번에 등록한다.
+     *
+     * - 한 건씩 등록하는 V2 와 달리 chunk 단위로 중복 검사(where name in) + batch insert 한다.
+     * - 일부 회원이 실패해도 전체가 실패하지 않고, 회원마다 결과를 돌려준다.
+     */
+    @PostMapping(value = "/api/v2/members/bulk", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public BulkCreateMemberResponse saveMembersV2(@RequestBody List<CreateMemberRequest> requests) {
+        return new BulkCreateMemberResponse(memberService.joinAll(toMembers(requests.iterator())));
+    }
+
+    /**
+     * 대량 등록 V2 (NDJSON): 한 줄에 CreateMemberRequest 1건
+     *
+     * - 요청 본문 전체를 메모리에 올리지 않고, 읽으면서 chunk 단위로 등록한다. (제휴사 대량 이관)
+     */
+    @PostMapping(value = "/api/v2/members/bulk", consumes = "application/x-ndjson")
+    public BulkCreateMemberResponse saveMembersV2Ndjson(InputStream body) throws IOException {
+        try (MappingIterator<CreateMemberRequest> requests =
+                     objectMapper.readerFor(CreateMemberRequest.class).readValues(body)) {
+            return new BulkCreateMemberResponse(memberService.joinAll(toMembers(requests)));
+        }
+    }
+
+    private Iterator<Member> toMembers(Iterator<CreateMemberRequest> requests) {
+        return new Iterator<Member>() {
+            @Override
+            public boolean hasNext() {
+                return requests.hasNext();
+            }
+
+            @Override
+            public Member next() {
+                Member member = new Member();
+                member.setName(requests.next().getName());
+                return member;
+            }
+        };
+    }
+
+    /**
+     * 수정 V2: UPDATE 1번으로 변경하고, 응답은 요청 값으로 만든다.
+     *
+     * - 변경(조회 + 변경 감지) 후 응답을 위해 다시 조회하면 select 2번 + update 1번이 실행된다.
+     * - 변경 된 row 가 없으면 404 를 응답한다. (존재 여부 확인을 위한 조회 X)
      */
     @PutMapping("/api/v2/members/{id}")
     public UpdateMemberResponse updateMemberV2(@PathVariable("id") Long id, @RequestBody @Valid UpdateMemberRequest request) {
-        memberService.update(id, request.getName());
-        Member findMember = memberService.findOne(id);
-        return new UpdateMemberResponse(findMember.getId(), findMember.getName());
+        if (!memberService.updateName(id, request.getName())) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "존재하지 않는 회원입니다.");
+        }
+        return new UpdateMemberResponse(id, request.getName());
     }
 
     /**
@@ -73,15 +131,29 @@ public class MemberApiController {
 
     /**
      * 조회 V2: 응답 값으로 엔티티가 아닌 별도의 DTO를 반환한다.
+     *
+     * - Keyset(Seek) 페이징 : 첫 페이지는 cursor 없이 요청하고, 응답의 nextCursor 로 다음 페이지를 요청한다.
+     * - Repository 에서 select m.id, m.name 만 DTO 로 조회한다. (엔티티 / 주소 / 주문 프록시를 만들지 않음)
+     * - 회원 수가 늘어나도 한 번에 최대 limit(<= MAX_LIMIT) 건만 읽으므로 응답 크기와 시간이 일정하다.
      */
-    @GetMapping("/api/v2/members")
-    public Result membersV2() {
-        List<Member> findMembers = memberService.findMembers();
-        //엔티티 -> DTO 변환
-        List<MemberDto> collect = findMembers.stream()
+    @GetMapping(value = "/api/v2/members",
+            produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_CBOR_VALUE, BinaryFormatConfig.APPLICATION_SMILE_VALUE})
+    public CursorResult<List<MemberDto>> membersV2(
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "limit", defaultValue = "100") int limit) {
+        int pageSize = Math.max(1, Math.min(limit, MAX_LIMIT));
+        // 다음 페이지 존재 여부를 알기 위해 1건 더 조회
+        List<MemberQueryDto> members = memberService.findMemberPage(CursorResult.decodeCursor(cursor), pageSize + 1);
+        boolean hasNext = members.size() > pageSize;
+        if (hasNext) {
+            members = members.subList(0, pageSize);
+        }
+
+        List<MemberDto> collect = members.stream()
                 .map(m -> new MemberDto(m.getName()))
                 .collect(Collectors.toList());
-        return new Result(collect);
+        String nextCursor = hasNext ? CursorResult.encodeCursor(members.get(members.size() - 1).getId()) : null;
+        return new CursorResult<>(collect, nextCursor);
     }
 
 
@@ -105,6 +177,25 @@ public class MemberApiController {
         }
     }
 
+    @Data
+    static class BulkCreateMemberResponse {
+        private int created;
+        private int duplicated;
+        private int invalid;
+        private List<MemberJoinResult> results;
+
+        public BulkCreateMemberResponse(List<MemberJoinResult> results) {
+            this.results = results;
+            for (MemberJoinResult result : results) {
+                switch (result.getStatus()) {
+                    case CREATED:   created++;    break;
+                    case DUPLICATE: duplicated++; break;
+                    case INVALID:   invalid++;    break;
+                }
+            }
+        }
+    }
+
     //== 수정
     @Data
     static class UpdateMemberRequest {
@@ -121,11 +212,6 @@ public class MemberApiController {
     //== 조회
     @Data
     @AllArgsConstructor
-    class Result<T> {
-        private T data;
-    }
-    @Data
-    @AllArgsConstructor
     class MemberDto {
         private String name;
     }
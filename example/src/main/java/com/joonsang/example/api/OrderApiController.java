@@ -1,25 +1,49 @@
 package com.joonsang.example.api;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.joonsang.example.domain.Address;
 import com.joonsang.example.domain.Order;
 import com.joonsang.example.domain.OrderItem;
 import com.joonsang.example.domain.OrderStatus;
-import com.joonsang.example.dto.OrderFlatDto;
-import com.joonsang.example.dto.OrderItemQueryDto;
+import com.joonsang.example.dto.OrderCancelResult;
+import com.joonsang.example.dto.OrderLineDto;
 import com.joonsang.example.dto.OrderQueryDto;
+import com.joonsang.example.dto.OrderSummaryDto;
+import com.joonsang.example.exception.NotEnoughStockException;
 import com.joonsang.example.repository.OrderRepository;
+import com.joonsang.example.service.OrderJsonCache;
+import com.joonsang.example.service.OrderListCache;
+import com.joonsang.example.service.OrderService;
+import com.joonsang.example.service.OrderSummaryService;
+import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import javax.validation.Valid;
+import javax.validation.constraints.NotEmpty;
+import javax.validation.constraints.NotNull;
+import javax.validation.constraints.Positive;
+import javax.validation.constraints.Size;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.function.UnaryOperator;
 
-import static java.util.stream.Collectors.groupingBy;
+import static com.joonsang.example.service.OrderListCache.ORDERS_CACHE;
+import static com.joonsang.example.service.OrderListCache.ORDER_FLATS_CACHE;
 import static java.util.stream.Collectors.toList;
-import static java.util.stream.Collectors.mapping;
 
 /**
  * 컬렉션 조회 최적화
@@ -31,7 +55,15 @@ import static java.util.stream.Collectors.mapping;
 @RequiredArgsConstructor
 public class OrderApiController {
 
+    private static final int MAX_LIMIT = 1000;
+    private static final int MAX_ORDERS = 1000;
+
     private final OrderRepository orderRepository;
+    private final OrderService orderService;
+    private final ObjectMapper objectMapper;
+    private final OrderSummaryService orderSummaryService;
+    private final OrderJsonCache orderJsonCache;
+    private final OrderListCache orderListCache;
 
 
     /**
@@ -126,6 +158,86 @@ public class OrderApiController {
     }
 
 
+    /**
+     * 주문 등록 V2: 여러 주문을 한번에 등록
+     *
+     * - 하나의 트랜잭션에서 JDBC batch insert 로 저장한다. (OrderService.orders 참고)
+     * - 주문 1,000 건도 수십 번의 DB 왕복으로 처리된다.
+     * - 한 번에 최대 MAX_ORDERS 건 (트랜잭션 1개가 너무 커지지 않도록)
+     * - 없는 회원 / 상품이면 404, 재고가 부족하면 409 (하나라도 실패하면 전체가 롤백된다)
+     */
+    @PostMapping("/api/v2/orders")
+    public CreateOrdersResponse saveOrdersV2(@RequestBody @Valid CreateOrdersRequest request) {
+        List<OrderLineDto> lines = request.getOrders().stream()
+                .map(o -> new OrderLineDto(o.getMemberId(), o.getItemId(), o.getCount()))
+                .collect(toList());
+        try {
+            return new CreateOrdersResponse(orderService.orders(lines));
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, e.getMessage(), e);
+        } catch (NotEnoughStockException e) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, e.getMessage(), e);
+        }
+    }
+
+    @Data
+    static class CreateOrdersRequest {
+        @NotEmpty
+        @Size(max = MAX_ORDERS)
+        private List<@Valid CreateOrderRequest> orders;
+    }
+
+    @Data
+    static class CreateOrderRequest {
+        @NotNull
+        private Long memberId;
+        @NotNull
+        private Long itemId;
+        @Positive
+        private int count;
+    }
+
+    @Data
+    @AllArgsConstructor
+    static class CreateOrdersResponse {
+        private List<Long> orderIds;
+    }
+
+
+    /**
+     * 주문 취소 V1
+     *
+     * - 없는 주문이면 404, 배송완료 / 이미 취소된 주문이면 409
+     */
+    @PostMapping("/api/v1/orders/{orderId}/cancel")
+    public void cancelOrderV1(@PathVariable("orderId") Long orderId) {
+        try {
+            orderService.cancelOrder(orderId);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, e.getMessage(), e);
+        } catch (IllegalStateException e) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 대량 주문 취소 V1
+     *
+     * - 취소할 수 없는 주문은 실패시키지 않고 rejectedIds 로 돌려준다.
+     * - 재고는 상품별로 합쳐서 UPDATE 1번씩 복구한다. (OrderService.cancelOrders 참고)
+     */
+    @PostMapping("/api/v1/orders/cancel")
+    public OrderCancelResult cancelOrdersV1(@RequestBody @Valid CancelOrdersRequest request) {
+        return orderService.cancelOrders(request.getOrderIds());
+    }
+
+    @Data
+    static class CancelOrdersRequest {
+        @NotEmpty
+        private List<Long> orderIds;
+    }
+
+
     /**
      * 주문 컬렉션 조회 V3: 엔티티를 조회해서 DTO 로 변환(fetch join 사용O)
      *
@@ -208,6 +320,35 @@ public class OrderApiController {
         return result;
     }
 
+    /**
+     * 주문 컬렉션 조회 V3.1: Keyset(Seek) 페이징
+     *
+     * - cursor 파라미터가 있으면 offset 대신 이 방식으로 조회한다. (첫 페이지는 cursor= 로 빈 값 요청)
+     * - 응답의 nextCursor 를 다음 요청의 cursor 로 그대로 넘긴다. 마지막 페이지면 null.
+     *
+     * - 장점 : offset 방식은 앞 페이지 row 를 모두 스캔하고 버리지만, 이 방식은 order_id 인덱스로 바로 찾아가므로
+     *         몇 번째 페이지든 조회 비용이 동일하다.
+     * - 단점 : 특정 페이지 번호로 바로 이동할 수 없다. (다음 페이지만 가능)
+     * - limit 은 1 ~ MAX_LIMIT 으로 보정한다.
+     */
+    @GetMapping(value = "/api/v3.1/orders", params = "cursor")
+    public CursorResult<List<OrderDto>> ordersV3_cursor(
+            @RequestParam("cursor") String cursor,
+            @RequestParam(value = "limit", defaultValue= "100") int limit) {
+        int pageSize = Math.max(1, Math.min(limit, MAX_LIMIT));
+        // 다음 페이지 존재 여부를 알기 위해 1건 더 조회
+        List<Order> orders = orderRepository.findAllWithMemberDelivery(CursorResult.decodeCursor(cursor), pageSize + 1);
+        boolean hasNext = orders.size() > pageSize;
+        if (hasNext) {
+            orders = orders.subList(0, pageSize);
+        }
+
+        List<OrderDto> result = orders.stream()
+                .map(o -> new OrderDto(o))
+                .collect(toList());
+        String nextCursor = hasNext ? CursorResult.encodeCursor(orders.get(orders.size() - 1).getId()) : null;
+        return new CursorResult<>(result, nextCursor);
+    }
 
     /**
      * 주문 컬렉션 조회 V4
@@ -216,9 +357,23 @@ public class OrderApiController {
      * - 단건 조회에서 많이 사용하는 방식
      *
      * - 단점 : N+1 문제
+     *
+     * - 응답 JSON 은 주문별로 캐시 된 바이트를 이어 붙여서 만든다. (OrderJsonCache)
+     * - Accept 가 CBOR / Smile 이면 아래 _binary 가 처리한다. (produces 가 없는 이 메서드는 그 외 모든 요청을 처리)
      */
     @GetMapping("/api/v4/orders")
-    public List<OrderQueryDto> ordersV4() {
+    public ResponseEntity<byte[]> ordersV4() {
+        long version = orderJsonCache.version();
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(orderJsonCache.writeArray(orderRepository.findOrderQueryDtos(), version));
+    }
+
+    /**
+     * 주문 컬렉션 조회 V4 (CBOR / Smile, BinaryFormatConfig)
+     */
+    @GetMapping(value = "/api/v4/orders", produces = {MediaType.APPLICATION_CBOR_VALUE, BinaryFormatConfig.APPLICATION_SMILE_VALUE})
+    public List<OrderQueryDto> ordersV4_binary() {
         return orderRepository.findOrderQueryDtos();
     }
 
@@ -232,10 +387,27 @@ public class OrderApiController {
      * - V4 보다 성능 우수
      *
      * - 단점 : 한방 쿼리가 아님
+     *
+     * - 목록은 캐시한다. (OrderListCache.ORDERS_CACHE)
+     * - 응답 JSON 은 주문별로 캐시 된 바이트를 이어 붙여서 만든다. (OrderJsonCache)
+     * - Accept 가 CBOR / Smile 이면 아래 _binary 가 처리한다. (produces 가 없는 이 메서드는 그 외 모든 요청을 처리)
      */
     @GetMapping("/api/v5/orders")
-    public List<OrderQueryDto> ordersV5() {
-        return orderRepository.findAllByDto_optimization();
+    public ResponseEntity<byte[]> ordersV5() {
+        long version = orderJsonCache.version();
+        // 직렬화만 하므로 DTO 를 복사하지 않는다.
+        List<OrderQueryDto> orders = orderListCache.get(ORDERS_CACHE, orderRepository::findAllByDto_optimization, UnaryOperator.identity());
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(orderJsonCache.writeArray(orders, version));
+    }
+
+    /**
+     * 주문 컬렉션 조회 V5 (CBOR / Smile, BinaryFormatConfig)
+     */
+    @GetMapping(value = "/api/v5/orders", produces = {MediaType.APPLICATION_CBOR_VALUE, BinaryFormatConfig.APPLICATION_SMILE_VALUE})
+    public List<OrderQueryDto> ordersV5_binary() {
+        return orderListCache.get(ORDERS_CACHE, orderRepository::findAllByDto_optimization, OrderQueryDto::copy);
     }
 
     /**
@@ -253,33 +425,74 @@ public class OrderApiController {
      *  : 애플리케이션에서 추가 작업이 크다.
      *  : 페이징 불가능
      */
-    @GetMapping("/api/v6/orders")
+    @GetMapping(value = "/api/v6/orders",
+            produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_CBOR_VALUE, BinaryFormatConfig.APPLICATION_SMILE_VALUE})
     public List<OrderQueryDto> ordersV6() {
 
-        List<OrderFlatDto> flats = orderRepository.findAllByDto_flat();
-
         /**
-         * group by 할 때, new OrderQueryDto 객체니까 ID를 알려줘야한다.
-         * 그러므로 OrderQueryDto 에 Equals hash code 를 구현 또는 선언해주며 묶어준다.
+         * o.id 로 정렬된 flat row 를 한번만 순회하면서, order_id 가 바뀔 때마다 OrderQueryDto 를 완성한다.
+         * groupingBy 를 위해 OrderQueryDto 를 row 마다 새로 만들거나, 전체 row 를 HashMap 에 모아둘 필요가 없다.
+         * 완성된 리스트는 캐시한다. (OrderListCache.ORDER_FLATS_CACHE)
          */
-        return flats.stream()
-                .collect(groupingBy(o -> new OrderQueryDto( o.getOrderId(),
-                                                            o.getName(),
-                                                            o.getOrderDate(),
-                                                            o.getOrderStatus(),
-                                                            o.getAddress()),
-                        mapping(o -> new OrderItemQueryDto( o.getOrderId(),
-                                                            o.getItemName(),
-                                                            o.getOrderPrice(),
-                                                            o.getCount()),
-                                                            toList())
-                )).entrySet().stream()
-                .map(e -> new OrderQueryDto(e.getKey().getOrderId(),
-                                            e.getKey().getName(),
-                                            e.getKey().getOrderDate(),
-                                            e.getKey().getOrderStatus(),
-                                            e.getKey().getAddress(),
-                                            e.getValue()))
-                .collect(toList());
+        return orderListCache.get(ORDER_FLATS_CACHE, orderRepository::findAllByDto_flatGrouped, OrderQueryDto::copy);
+    }
+
+    /**
+     * 주문 컬렉션 조회 V7: 읽기 모델(order_summary) 조회
+     *
+     * - 주문이 변경될 때 미리 계산해 둔 order_summary 를 PK 인덱스로 1번 조회한다. (조인 X)
+     * - 주문상품 목록은 저장된 JSON 을 그대로 응답에 쓴다.
+     * - Keyset 페이징 : 첫 페이지는 cursor 없이 요청하고, 응답의 nextCursor 로 다음 페이지를 요청한다.
+     *   limit 은 1 ~ MAX_LIMIT 으로 보정한다.
+     *
+     * - 장점
+     *  : Query 1번, 조인 / 엔티티 생성 / 컬렉션 조립 X
+     *
+     * - 단점
+     *  : 주문 변경 시 읽기 모델 갱신 비용이 추가된다.
+     *  : bulk UPDATE 로 주문을 변경하면 읽기 모델을 직접 갱신해야 한다.
+     *  : 저장된 JSON 을 그대로 쓰므로 JSON 응답만 제공한다. (CBOR / Smile X)
+     */
+    @GetMapping(value = "/api/v7/orders", produces = MediaType.APPLICATION_JSON_VALUE)
+    public CursorResult<List<OrderSummaryDto>> ordersV7(
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "limit", defaultValue = "100") int limit) {
+        int pageSize = Math.max(1, Math.min(limit, MAX_LIMIT));
+        // 다음 페이지 존재 여부를 알기 위해 1건 더 조회
+        List<OrderSummaryDto> result = orderSummaryService.findSummaries(CursorResult.decodeCursor(cursor), pageSize + 1);
+        boolean hasNext = result.size() > pageSize;
+        if (hasNext) {
+            result = result.subList(0, pageSize);
+        }
+        String nextCursor = hasNext ? CursorResult.encodeCursor(result.get(result.size() - 1).getOrderId()) : null;
+        return new CursorResult<>(result, nextCursor);
+    }
+
+    /**
+     * 주문 단건 조회 V7: 읽기 모델(order_summary) 조회
+     */
+    @GetMapping(value = "/api/v7/orders/{orderId}", produces = MediaType.APPLICATION_JSON_VALUE)
+    public OrderSummaryDto orderV7(@PathVariable("orderId") Long orderId) {
+        return orderSummaryService.findSummary(orderId)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "존재하지 않는 주문입니다."));
+    }
+
+    /**
+     * 주문 전체 내보내기: NDJSON Streaming
+     *
+     * - 다른 버전은 전체 결과를 List 로 힙에 올린 뒤 Jackson 이 한번에 쓰므로, 주문 수가 많으면 OutOfMemory 가 발생한다.
+     * - 커서로 읽은 주문을 한 줄에 하나씩 JSON 으로 바로 써서 내보낸다. (application/x-ndjson)
+     * - 메모리 사용량은 order.export.fetch-size 만큼의 주문으로 제한된다.
+     */
+    @GetMapping(value = "/api/orders/export", produces = "application/x-ndjson")
+    public StreamingResponseBody exportOrders() {
+        return out -> orderService.exportOrders(order -> {
+            try {
+                out.write(objectMapper.writeValueAsBytes(order));
+                out.write('\n');
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
     }
 }
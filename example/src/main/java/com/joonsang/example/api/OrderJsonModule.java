@@ -0,0 +1,337 @@
+package com.joonsang.example.api;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import com.joonsang.example.domain.Address;
+import com.joonsang.example.domain.OrderStatus;
+import com.joonsang.example.dto.OrderFlatDto;
+import com.joonsang.example.dto.OrderItemQueryDto;
+import com.joonsang.example.dto.OrderQueryDto;
+import com.joonsang.example.dto.OrderSimpleQueryDto;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+
+/**
+ * 주문 DTO 전용 Jackson 직렬화 (json.performance-mode = true 일 때 등록, JsonPerformanceConfig)
+ *
+ * - 리플렉션 / getter 탐색 없이 필드를 순서대로 바로 쓴다.
+ * - 필드 이름은 미리 인코딩 해 둔 SerializedString 을 재사용한다.
+ * - LocalDateTime 은 DateTimeFormatter 대신 char[] 에 직접 쓴다. (ISO_LOCAL_DATE_TIME 과 같은 결과)
+ * - 출력 JSON 은 기본 직렬화(Lombok getter)와 같다. (필드 순서 / null 포함)
+ *
+ * - 주의 : DTO 에 필드를 추가하면 여기에도 추가해야 한다. 프로퍼티 설정(@JsonIgnore, 포함 규칙 등)은 적용되지 않는다.
+ */
+public class OrderJsonModule extends SimpleModule {
+
+    private static final SerializedString ORDER_ID = new SerializedString("orderId");
+    private static final SerializedString VALUE = new SerializedString("value");
+    private static final SerializedString NAME = new SerializedString("name");
+    private static final SerializedString ORDER_DATE = new SerializedString("orderDate");
+    private static final SerializedString ORDER_STATUS = new SerializedString("orderStatus");
+    private static final SerializedString ADDRESS = new SerializedString("address");
+    private static final SerializedString ORDER_ITEMS = new SerializedString("orderItems");
+    private static final SerializedString ITEM_NAME = new SerializedString("itemName");
+    private static final SerializedString ORDER_PRICE = new SerializedString("orderPrice");
+    private static final SerializedString COUNT = new SerializedString("count");
+    private static final SerializedString CITY = new SerializedString("city");
+    private static final SerializedString STREET = new SerializedString("street");
+    private static final SerializedString ZIPCODE = new SerializedString("zipcode");
+
+    public OrderJsonModule() {
+        super("OrderJsonModule");
+        addSerializer(new OrderQueryDtoSerializer());
+        addSerializer(new OrderItemQueryDtoSerializer());
+        addSerializer(new OrderSimpleQueryDtoSerializer());
+        addSerializer(new OrderFlatDtoSerializer());
+        addSerializer(new AddressSerializer());
+        addSerializer(new OrderDtoSerializer());
+        addSerializer(new OrderItemDtoSerializer());
+        addSerializer(new SimpleOrderDtoSerializer());
+    }
+
+    //== 주문 DTO ==//
+
+    static class OrderQueryDtoSerializer extends StdSerializer<OrderQueryDto> {
+
+        OrderQueryDtoSerializer() {
+            super(OrderQueryDto.class);
+        }
+
+        @Override
+        public void serialize(OrderQueryDto dto, JsonGenerator gen, SerializerProvider provider) throws IOException {
+            gen.writeStartObject(dto);
+            writeLong(gen, ORDER_ID, dto.getOrderId());
+            gen.writeFieldName(VALUE);
+            writeOrderItems(gen, dto.getValue());
+            writeString(gen, NAME, dto.getName());
+            writeOrderDate(gen, dto.getOrderDate());
+            writeOrderStatus(gen, dto.getOrderStatus());
+            writeAddress(gen, dto.getAddress());
+            gen.writeFieldName(ORDER_ITEMS);
+            writeOrderItems(gen, dto.getOrderItems());
+            gen.writeEndObject();
+        }
+    }
+
+    static class OrderItemQueryDtoSerializer extends StdSerializer<OrderItemQueryDto> {
+
+        OrderItemQueryDtoSerializer() {
+            super(OrderItemQueryDto.class);
+        }
+
+        @Override
+        public void serialize(OrderItemQueryDto dto, JsonGenerator gen, SerializerProvider provider) throws IOException {
+            writeOrderItem(gen, dto);
+        }
+    }
+
+    static class OrderSimpleQueryDtoSerializer extends StdSerializer<OrderSimpleQueryDto> {
+
+        OrderSimpleQueryDtoSerializer() {
+            super(OrderSimpleQueryDto.class);
+        }
+
+        @Override
+        public void serialize(OrderSimpleQueryDto dto, JsonGenerator gen, SerializerProvider provider) throws IOException {
+            gen.writeStartObject(dto);
+            writeLong(gen, ORDER_ID, dto.getOrderId());
+            writeString(gen, NAME, dto.getName());
+            writeOrderDate(gen, dto.getOrderDate());
+            writeOrderStatus(gen, dto.getOrderStatus());
+            writeAddress(gen, dto.getAddress());
+            gen.writeEndObject();
+        }
+    }
+
+    static class OrderFlatDtoSerializer extends StdSerializer<OrderFlatDto> {
+
+        OrderFlatDtoSerializer() {
+            super(OrderFlatDto.class);
+        }
+
+        @Override
+        public void serialize(OrderFlatDto dto, JsonGenerator gen, SerializerProvider provider) throws IOException {
+            gen.writeStartObject(dto);
+            writeLong(gen, ORDER_ID, dto.getOrderId());
+            writeString(gen, NAME, dto.getName());
+            writeOrderDate(gen, dto.getOrderDate());
+            writeAddress(gen, dto.getAddress());
+            writeOrderStatus(gen, dto.getOrderStatus());
+            writeString(gen, ITEM_NAME, dto.getItemName());
+            gen.writeFieldName(ORDER_PRICE);
+            gen.writeNumber(dto.getOrderPrice());
+            gen.writeFieldName(COUNT);
+            gen.writeNumber(dto.getCount());
+            gen.writeEndObject();
+        }
+    }
+
+    static class AddressSerializer extends StdSerializer<Address> {
+
+        AddressSerializer() {
+            super(Address.class);
+        }
+
+        @Override
+        public void serialize(Address address, JsonGenerator gen, SerializerProvider provider) throws IOException {
+            writeAddressObject(gen, address);
+        }
+    }
+
+    //== 컨트롤러 응답 DTO (V2, V3) ==//
+
+    static class OrderDtoSerializer extends StdSerializer<OrderApiController.OrderDto> {
+
+        OrderDtoSerializer() {
+            super(OrderApiController.OrderDto.class);
+        }
+
+        @Override
+        public void serialize(OrderApiController.OrderDto dto, JsonGenerator gen, SerializerProvider provider) throws IOException {
+            gen.writeStartObject(dto);
+            writeLong(gen, ORDER_ID, dto.getOrderId());
+            writeString(gen, NAME, dto.getName());
+            writeOrderDate(gen, dto.getOrderDate());
+            writeOrderStatus(gen, dto.getOrderStatus());
+            writeAddress(gen, dto.getAddress());
+            gen.writeFieldName(ORDER_ITEMS);
+            List<OrderApiController.OrderItemDto> orderItems = dto.getOrderItems();
+            if (orderItems == null) {
+                gen.writeNull();
+            } else {
+                gen.writeStartArray(orderItems, orderItems.size());
+                for (OrderApiController.OrderItemDto orderItem : orderItems) {
+                    writeOrderItem(gen, orderItem);
+                }
+                gen.writeEndArray();
+            }
+            gen.writeEndObject();
+        }
+    }
+
+    static class OrderItemDtoSerializer extends StdSerializer<OrderApiController.OrderItemDto> {
+
+        OrderItemDtoSerializer() {
+            super(OrderApiController.OrderItemDto.class);
+        }
+
+        @Override
+        public void serialize(OrderApiController.OrderItemDto dto, JsonGenerator gen, SerializerProvider provider) throws IOException {
+            writeOrderItem(gen, dto);
+        }
+    }
+
+    static class SimpleOrderDtoSerializer extends StdSerializer<OrderSimpleApiController.SimpleOrderDto> {
+
+        SimpleOrderDtoSerializer() {
+            super(OrderSimpleApiController.SimpleOrderDto.class);
+        }
+
+        @Override
+        public void serialize(OrderSimpleApiController.SimpleOrderDto dto, JsonGenerator gen, SerializerProvider provider) throws IOException {
+            gen.writeStartObject(dto);
+            writeLong(gen, ORDER_ID, dto.getOrderId());
+            writeString(gen, NAME, dto.getName());
+            writeOrderDate(gen, dto.getOrderDate());
+            writeOrderStatus(gen, dto.getOrderStatus());
+            writeAddress(gen, dto.getAddress());
+            gen.writeEndObject();
+        }
+    }
+
+    //== 공통 ==//
+
+    private static void writeOrderItems(JsonGenerator gen, List<OrderItemQueryDto> orderItems) throws IOException {
+        if (orderItems == null) {
+            gen.writeNull();
+            return;
+        }
+        gen.writeStartArray(orderItems, orderItems.size());
+        for (OrderItemQueryDto orderItem : orderItems) {
+            writeOrderItem(gen, orderItem);
+        }
+        gen.writeEndArray();
+    }
+
+    private static void writeOrderItem(JsonGenerator gen, OrderItemQueryDto orderItem) throws IOException {
+        gen.writeStartObject(orderItem);
+        writeOrderItemFields(gen, orderItem.getItemName(), orderItem.getOrderPrice(), orderItem.getCount());
+        gen.writeEndObject();
+    }
+
+    private static void writeOrderItem(JsonGenerator gen, OrderApiController.OrderItemDto orderItem) throws IOException {
+        gen.writeStartObject(orderItem);
+        writeOrderItemFields(gen, orderItem.getItemName(), orderItem.getOrderPrice(), orderItem.getCount());
+        gen.writeEndObject();
+    }
+
+    private static void writeOrderItemFields(JsonGenerator gen, String itemName, int orderPrice, int count) throws IOException {
+        writeString(gen, ITEM_NAME, itemName);
+        gen.writeFieldName(ORDER_PRICE);
+        gen.writeNumber(orderPrice);
+        gen.writeFieldName(COUNT);
+        gen.writeNumber(count);
+    }
+
+    private static void writeAddress(JsonGenerator gen, Address address) throws IOException {
+        gen.writeFieldName(ADDRESS);
+        writeAddressObject(gen, address);
+    }
+
+    private static void writeAddressObject(JsonGenerator gen, Address address) throws IOException {
+        if (address == null) {
+            gen.writeNull();
+            return;
+        }
+        gen.writeStartObject(address);
+        writeString(gen, CITY, address.getCity());
+        writeString(gen, STREET, address.getStreet());
+        writeString(gen, ZIPCODE, address.getZipcode());
+        gen.writeEndObject();
+    }
+
+    private static void writeLong(JsonGenerator gen, SerializedString name, Long value) throws IOException {
+        gen.writeFieldName(name);
+        if (value == null) {
+            gen.writeNull();
+        } else {
+            gen.writeNumber(value);
+        }
+    }
+
+    private static void writeString(JsonGenerator gen, SerializedString name, String value) throws IOException {
+        gen.writeFieldName(name);
+        gen.writeString(value);
+    }
+
+    private static void writeOrderStatus(JsonGenerator gen, OrderStatus status) throws IOException {
+        gen.writeFieldName(ORDER_STATUS);
+        if (status == null) {
+            gen.writeNull();
+        } else {
+            gen.writeString(status.name());
+        }
+    }
+
+    private static void writeOrderDate(JsonGenerator gen, LocalDateTime orderDate) throws IOException {
+        gen.writeFieldName(ORDER_DATE);
+        if (orderDate == null) {
+            gen.writeNull();
+            return;
+        }
+        int year = orderDate.getYear();
+        if (year < 0 || year > 9999) {
+            gen.writeString(orderDate.format(DateTimeFormatter.ISO_LOCAL_DATE_TIME));
+            return;
+        }
+
+        // yyyy-MM-ddTHH:mm:ss[.SSSSSSSSS] (소수점 아래는 끝의 0 을 뺀다)
+        char[] buf = new char[29];
+        write4(buf, 0, year);
+        buf[4] = '-';
+        write2(buf, 5, orderDate.getMonthValue());
+        buf[7] = '-';
+        write2(buf, 8, orderDate.getDayOfMonth());
+        buf[10] = 'T';
+        write2(buf, 11, orderDate.getHour());
+        buf[13] = ':';
+        write2(buf, 14, orderDate.getMinute());
+        buf[16] = ':';
+        write2(buf, 17, orderDate.getSecond());
+        int len = 19;
+
+        int nano = orderDate.getNano();
+        if (nano > 0) {
+            buf[len++] = '.';
+            int digits = 9;
+            while (nano % 10 == 0) {
+                nano /= 10;
+                digits--;
+            }
+            for (int i = len + digits - 1; i >= len; i--) {
+                buf[i] = (char) ('0' + nano % 10);
+                nano /= 10;
+            }
+            len += digits;
+        }
+        gen.writeString(buf, 0, len);
+    }
+
+    private static void write2(char[] buf, int pos, int value) {
+        buf[pos] = (char) ('0' + value / 10);
+        buf[pos + 1] = (char) ('0' + value % 10);
+    }
+
+    private static void write4(char[] buf, int pos, int value) {
+        buf[pos] = (char) ('0' + value / 1000);
+        buf[pos + 1] = (char) ('0' + value / 100 % 10);
+        buf[pos + 2] = (char) ('0' + value / 10 % 10);
+        buf[pos + 3] = (char) ('0' + value % 10);
+    }
+}
@@ -5,6 +5,7 @@ import com.joonsang.example.domain.Order;
 import com.joonsang.example.domain.OrderStatus;
 import com.joonsang.example.dto.OrderSimpleQueryDto;
 import com.joonsang.example.repository.OrderRepository;
+import com.joonsang.example.service.OrderListCache;
 import lombok.Data;
 import lombok.RequiredArgsConstructor;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -13,6 +14,7 @@ import org.springframework.web.bind.annotation.RestController;
 import java.time.LocalDateTime;
 import java.util.List;
 
+import static com.joonsang.example.service.OrderListCache.SIMPLE_ORDERS_CACHE;
 import static java.util.stream.Collectors.toList;
 
 /**
@@ -26,6 +28,7 @@ import static java.util.stream.Collectors.toList;
 public class OrderSimpleApiController {
 
     private final OrderRepository orderRepository;
+    private final OrderListCache orderListCache;
 
 
     /**
@@ -137,10 +140,12 @@ public class OrderSimpleApiController {
      *
      * - 단점 : 재사용성이 적다.
      *         코드가 지저분하다.
+     *
+     * - 결과는 캐시한다. (OrderListCache.SIMPLE_ORDERS_CACHE)
      */
     @GetMapping("/api/v4/simple-orders")
     public List<OrderSimpleQueryDto> ordersV4() {
-        return orderRepository.findOrderDtos();
+        return orderListCache.get(SIMPLE_ORDERS_CACHE, orderRepository::findOrderDtos, OrderSimpleQueryDto::copy);
     }
 
 }
@@ -1,32 +1,119 @@
 package com.joonsang.example.domain;
 
 import com.joonsang.example.domain.item.Item;
+import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.Setter;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
 
 import javax.persistence.*;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "category")  // 2차 캐시
+@Table(indexes = @Index(name = "idx_category_path", columnList = "path"))
 @Getter @Setter
 public class Category {
-    @Id @GeneratedValue
+    @Id
+    @GeneratedValue(generator = "category_seq")
+    @GenericGenerator(name = "category_seq", strategy = PooledLoSequenceGenerator.STRATEGY,
+            parameters = @Parameter(name = "sequence_name", value = "category_seq"))
     @Column(name = "category_id")
     private Long id;
     private String name;
+    /**
+     * 카테고리에 속한 상품 (category_item)
+     *
+     * - Set : 중복이 없으므로 상품 1개를 추가 / 제거하면 category_item 도 INSERT / DELETE 1번만 실행한다.
+     *   (List 는 어떤 row 가 바뀌었는지 알 수 없어서 카테고리의 row 를 모두 지우고 다시 넣는다)
+     * - 기본 키 (category_id, item_id) 로 카테고리 -> 상품, idx_category_item_item 으로 상품 -> 카테고리를 찾는다.
+     */
     @ManyToMany
     @JoinTable(name = "category_item",
             joinColumns = @JoinColumn(name = "category_id"),
-            inverseJoinColumns = @JoinColumn(name = "item_id"))
-    private List<Item> items = new ArrayList<>();
+            inverseJoinColumns = @JoinColumn(name = "item_id"),
+            indexes = @Index(name = "idx_category_item_item", columnList = "item_id"))
+    private Set<Item> items = new HashSet<>();
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "parent_id")
     private Category parent;
     @OneToMany(mappedBy = "parent")
     private List<Category> child = new ArrayList<>();
+
+    /**
+     * 조상 카테고리 id 경로 (Materialized path, 루트 -> 부모 순)
+     *
+     * - 루트 : "/" , 1 의 자식 : "/1/" , 1 -> 5 의 자식 : "/1/5/"
+     * - 하위 카테고리 전체 = path 가 getSubtreePath() 로 시작하는 카테고리 (idx_category_path 인덱스로 LIKE 'prefix%' 1번 조회)
+     * - 자기 id 는 넣지 않는다. (저장 전에는 id 가 없으므로)
+     * - addChildCategory / 저장 시점에 부모의 path 로 계산한다. 직접 변경하지 않는다.
+     * - 하위 트리를 옮기면 하위 카테고리의 path 는 UPDATE 1번으로 바꾼다. (CategoryRepository.move)
+     */
+    @Setter(AccessLevel.NONE)
+    @Column(nullable = false, length = 500)
+    private String path = "/";
+
     //==연관관계 메서드==//
+
+    /**
+     * 하위 카테고리 추가
+     *
+     * - 부모(this)는 먼저 저장되어 있어야 한다. (path 에 부모 id 가 들어가므로)
+     * - 자기 자신이나 자신의 하위 카테고리 밑으로는 옮길 수 없다. (순환)
+     * - child 의 path 만 다시 계산한다. 하위 카테고리가 있는 카테고리를 옮길 때는 CategoryRepository.move 를 사용한다.
+     */
     public void addChildCategory(Category child) {
+        if (id == null) {
+            throw new IllegalStateException("부모 카테고리를 먼저 저장해야 합니다. parent=" + name);
+        }
+        if (isSameOrDescendantOf(child)) {
+            throw new IllegalArgumentException("자신 또는 하위 카테고리 밑으로 옮길 수 없습니다. category=" + child.getName() + ", parent=" + name);
+        }
         this.child.add(child);
         child.setParent(this);
+        child.updatePath();
+    }
+
+    /**
+     * 하위 카테고리의 path 접두어 ("/1/5/" 의 카테고리 7 이면 "/1/5/7/")
+     */
+    public String getSubtreePath() {
+        if (id == null) {
+            throw new IllegalStateException("저장되지 않은 카테고리입니다.");
+        }
+        return path + id + "/";
+    }
+
+    /**
+     * 이 카테고리가 category 자신이거나 그 하위 카테고리인지 (부모를 따라 올라가며 확인)
+     */
+    private boolean isSameOrDescendantOf(Category category) {
+        for (Category c = this; c != null; c = c.getParent()) {
+            if (c == category || (c.getId() != null && c.getId().equals(category.getId()))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 부모 기준으로 path 를 다시 계산한다. (하위 카테고리의 path 는 CategoryRepository.move 가 한 번에 바꾼다)
+     */
+    private void updatePath() {
+        path = parent == null ? "/" : parent.getSubtreePath();
+    }
+
+    @PrePersist
+    void prePersist() {
+        if (parent != null && parent.getId() == null) {
+            throw new IllegalStateException("부모 카테고리를 먼저 저장해야 합니다. name=" + name);
+        }
+        updatePath();
     }
 }
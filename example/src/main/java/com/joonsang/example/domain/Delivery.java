@@ -3,13 +3,18 @@ package com.joonsang.example.domain;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.Getter;
 import lombok.Setter;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
 
 import javax.persistence.*;
 
 @Entity
 @Getter @Setter
 public class Delivery {
-    @Id @GeneratedValue
+    @Id
+    @GeneratedValue(generator = "delivery_seq")
+    @GenericGenerator(name = "delivery_seq", strategy = PooledLoSequenceGenerator.STRATEGY,
+            parameters = @Parameter(name = "sequence_name", value = "delivery_seq"))
     @Column(name = "delivery_id")
     private Long id;
 
@@ -1,5 +1,15 @@
 package com.joonsang.example.domain;
 
+import java.util.EnumSet;
+import java.util.Set;
+
 public enum DeliveryStatus {
-    READY, COMP
+    READY, COMP;
+
+    /**
+     * 이 상태로 바꿀 수 있는 이전 상태 (READY -> COMP 만 가능)
+     */
+    public Set<DeliveryStatus> allowedFrom() {
+        return this == COMP ? EnumSet.of(READY) : EnumSet.noneOf(DeliveryStatus.class);
+    }
 }
@@ -4,6 +4,8 @@ import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
 
 import javax.persistence.*;
 import java.time.LocalDateTime;
@@ -16,7 +18,10 @@ import java.util.List;
 @Getter @Setter
 public class Order {
 
-    @Id @GeneratedValue
+    @Id
+    @GeneratedValue(generator = "orders_seq")
+    @GenericGenerator(name = "orders_seq", strategy = PooledLoSequenceGenerator.STRATEGY,
+            parameters = @Parameter(name = "sequence_name", value = "orders_seq"))
     @Column(name = "order_id")
     private Long id;
 
@@ -65,4 +70,26 @@ public class Order {
         order.setOrderDate(LocalDateTime.now());
         return order;
     }
+
+    //== 비즈니스 로직 ==//
+    /**
+     * 주문 취소
+     *
+     * - 배송이 완료(COMP)된 주문 / 이미 취소된 주문은 취소할 수 없다.
+     * - 재고 복구는 OrderService 가 취소한 주문들의 주문상품을 상품별로 모아서 UPDATE 한다.
+     *   (주문상품마다 Item 엔티티를 조회해서 addStock 하지 않는다)
+     */
+    public void cancel() {
+        if (delivery.getStatus() == DeliveryStatus.COMP) {
+            throw new IllegalStateException("이미 배송완료된 상품은 취소가 불가능합니다.");
+        }
+        if (status == OrderStatus.CANCEL) {
+            throw new IllegalStateException("이미 취소된 주문입니다.");
+        }
+        this.setStatus(OrderStatus.CANCEL);
+    }
+
+    public boolean isCancelable() {
+        return status != OrderStatus.CANCEL && delivery.getStatus() != DeliveryStatus.COMP;
+    }
 }
@@ -4,6 +4,8 @@ import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.joonsang.example.domain.item.Item;
 import lombok.Getter;
 import lombok.Setter;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
 
 import javax.persistence.*;
 
@@ -12,7 +14,10 @@ import javax.persistence.*;
 @Getter @Setter
 public class OrderItem {
 
-    @Id @GeneratedValue
+    @Id
+    @GeneratedValue(generator = "order_item_seq")
+    @GenericGenerator(name = "order_item_seq", strategy = PooledLoSequenceGenerator.STRATEGY,
+            parameters = @Parameter(name = "sequence_name", value = "order_item_seq"))
     @Column(name = "order_item_id")
     private Long id;
 
@@ -39,4 +44,17 @@ public class OrderItem {
         item.removeStock(count);
         return orderItem;
     }
+
+    /**
+     * 재고를 차감하지 않는 생성 메소드
+     *
+     * - 재고 예약 장부(StockLedger)처럼 호출하는 쪽에서 재고를 이미 예약했을 때 사용한다.
+     */
+    public static OrderItem createReservedOrderItem(Item item, int orderPrice, int count) {
+        OrderItem orderItem = new OrderItem();
+        orderItem.setItem(item);
+        orderItem.setOrderPrice(orderPrice);
+        orderItem.setCount(count);
+        return orderItem;
+    }
 }
@@ -0,0 +1,56 @@
+package com.joonsang.example.domain;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * 주문 목록 조회용 읽기 모델 (order_summary)
+ *
+ * - orders / member / delivery / order_item / item 을 조인한 결과를 주문 1건당 row 1개로 미리 저장한다.
+ * - 주문, 주문상품, 배송이 변경되면 같은 트랜잭션 커밋 직전에 OrderSummaryService 가 다시 계산한다.
+ * - 주문상품 목록은 JSON 문자열로 저장하고, 응답에 그대로 쓴다.
+ *
+ * - 단점 : 쓰기 비용 증가 (주문 변경마다 조회 + UPDATE), 데이터 중복
+ */
+@Entity
+@Table(name = "order_summary", indexes = @Index(name = "idx_order_summary_member", columnList = "member_id"))
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@Getter @Setter
+public class OrderSummary {
+
+    @Id
+    @Column(name = "order_id")
+    private Long orderId;
+
+    @Column(name = "member_id")
+    private Long memberId;
+
+    private String memberName;
+
+    private LocalDateTime orderDate;
+
+    @Enumerated(EnumType.STRING)
+    private OrderStatus status;
+
+    @Enumerated(EnumType.STRING)
+    private DeliveryStatus deliveryStatus;
+
+    @Embedded
+    private Address address;            //배송지
+
+    private int itemCount;              //주문상품 수
+
+    private long totalPrice;            //주문 금액 합계
+
+    @Lob
+    private String orderItems;          //주문상품 목록 (JSON)
+
+    public OrderSummary(Long orderId) {
+        this.orderId = orderId;
+    }
+}
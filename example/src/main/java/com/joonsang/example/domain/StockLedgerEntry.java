@@ -0,0 +1,41 @@
+package com.joonsang.example.domain;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+
+import javax.persistence.*;
+
+/**
+ * 재고 예약 장부(StockLedger)에서 아직 item.stock_quantity 에 반영하지 않은 재고 변경량 (stock_ledger_entry)
+ *
+ * - 주문 / 주문 취소 트랜잭션이 커밋할 때 상품별 변경량을 insert 한다. (주문과 함께 커밋 / 롤백)
+ * - 같은 상품의 row 를 UPDATE 하지 않고 insert 만 하므로 hot row 락 경합이 없다.
+ * - 장부 flush 가 상품별로 합쳐서 item.stock_quantity 에 반영하고 지운다.
+ * - 실제 재고 = item.stock_quantity - 남아 있는 변경량 합계
+ */
+@Entity
+@Table(name = "stock_ledger_entry", indexes = @Index(name = "idx_stock_ledger_entry_item", columnList = "item_id"))
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@Getter
+public class StockLedgerEntry {
+
+    @Id
+    @GeneratedValue(generator = "stock_ledger_entry_seq")
+    @GenericGenerator(name = "stock_ledger_entry_seq", strategy = PooledLoSequenceGenerator.STRATEGY,
+            parameters = @Parameter(name = "sequence_name", value = "stock_ledger_entry_seq"))
+    @Column(name = "stock_ledger_entry_id")
+    private Long id;
+
+    @Column(name = "item_id", nullable = false)
+    private Long itemId;
+
+    private long quantity;      //재고 차감량 (음수면 재고 복구)
+
+    public StockLedgerEntry(Long itemId, long quantity) {
+        this.itemId = itemId;
+        this.quantity = quantity;
+    }
+}
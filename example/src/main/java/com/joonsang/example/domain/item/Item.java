@@ -1,20 +1,37 @@
 package com.joonsang.example.domain.item;
 
 import com.joonsang.example.domain.Category;
+import com.joonsang.example.domain.PooledLoSequenceGenerator;
 import com.joonsang.example.exception.NotEnoughStockException;
 import lombok.Getter;
 import lombok.Setter;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
 import javax.persistence.*;
-import java.util.ArrayList;
-import java.util.List;
+import java.util.HashSet;
+import java.util.Set;
 
+/**
+ * 2차 캐시 (region: item)
+ *
+ * - 주문 조회 시 OrderItem -> Item 을 매번 읽으므로 트랜잭션을 넘어서 캐시한다. (Book / Album / Movie 도 같은 region 사용)
+ * - READ_WRITE 이므로 removeStock / addStock 으로 변경 된 엔티티는 커밋 시점에 캐시도 함께 갱신된다.
+ * - 단, JPQL bulk update / native query 로 직접 변경하면 캐시에 반영되지 않으므로 해당 region 을 evict 해야 한다.
+ */
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "item")
 @Inheritance(strategy = InheritanceType.SINGLE_TABLE)
 @DiscriminatorColumn(name = "dtype")
 @Getter @Setter
 public abstract class Item {
 
-    @Id @GeneratedValue
+    @Id
+    @GeneratedValue(generator = "item_seq")
+    @GenericGenerator(name = "item_seq", strategy = PooledLoSequenceGenerator.STRATEGY,
+            parameters = @Parameter(name = "sequence_name", value = "item_seq"))
     @Column(name = "item_id")
     private Long id;
 
@@ -24,8 +41,23 @@ public abstract class Item {
 
     private int stockQuantity;
 
+    /**
+     * 낙관적 락
+     *
+     * - 동시에 같은 상품을 주문하면 나중에 flush 하는 쪽이 OptimisticLockException 으로 실패한다. (재고 초과 판매 방지)
+     * - 기존 상품은 version 이 0 으로 채워진다. (db/migration/V1__item_version.sql)
+     */
+    @Version
+    @Column(nullable = false)
+    private Long version;
+
+    /**
+     * 상품이 속한 카테고리 (읽기 전용 - category_item 은 Category.items 로 변경한다)
+     *
+     * - 상품 목록과 카테고리를 함께 보여줄 때는 ItemRepository.findCategoryMap 으로 한번에 조회한다.
+     */
     @ManyToMany(mappedBy = "items")
-    private List<Category> categories = new ArrayList<Category>();
+    private Set<Category> categories = new HashSet<>();
 
     //== 비즈니스 로직 ==//
     public void addStock(int quantity) {
@@ -0,0 +1,30 @@
+package com.joonsang.example.dto;
+
+import com.joonsang.example.domain.DeliveryStatus;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * 배송 상태 일괄 변경 결과
+ *
+ * - requested   : 요청한 배송 수 (중복 제외)
+ * - changed     : 변경 된 배송 수
+ * - rejectedIds : 변경하지 않은 배송 (없는 배송 / 바꿀 수 없는 상태 / 취소된 주문)
+ * - elapsedMillis, changedPerSecond : 처리 시간 / 초당 변경 건수
+ */
+@Data
+@AllArgsConstructor
+public class DeliveryStatusChangeResult {
+
+    private DeliveryStatus status;
+    private int requested;
+    private int changed;
+    private List<Long> rejectedIds;
+    private long elapsedMillis;
+
+    public long getChangedPerSecond() {
+        return elapsedMillis == 0 ? changed * 1000L : changed * 1000L / elapsedMillis;
+    }
+}
@@ -0,0 +1,19 @@
+package com.joonsang.example.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import lombok.Data;
+
+@Data
+public class ItemCategoryQueryDto {
+
+    @JsonIgnore
+    private Long itemId; //상품 번호
+    private Long categoryId; //카테고리 번호
+    private String name; //카테고리 명
+
+    public ItemCategoryQueryDto(Long itemId, Long categoryId, String name) {
+        this.itemId = itemId;
+        this.categoryId = categoryId;
+        this.name = name;
+    }
+}
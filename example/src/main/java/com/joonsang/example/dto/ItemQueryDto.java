@@ -0,0 +1,27 @@
+package com.joonsang.example.dto;
+
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * 상품 목록 조회용 프로젝션 (카테고리 포함)
+ *
+ * - categories 는 ItemRepository.findCategoryMap 으로 한 페이지 분을 한번에 채운다.
+ */
+@Data
+public class ItemQueryDto {
+
+    private Long id;
+    private String name;
+    private int price;
+    private int stockQuantity;
+    private List<ItemCategoryQueryDto> categories;
+
+    public ItemQueryDto(Long id, String name, int price, int stockQuantity) {
+        this.id = id;
+        this.name = name;
+        this.price = price;
+        this.stockQuantity = stockQuantity;
+    }
+}
@@ -0,0 +1,36 @@
+package com.joonsang.example.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * 대량 회원가입 1건 결과
+ *
+ * - index : 요청에서 몇 번째 회원인지 (0 부터)
+ * - id    : 가입된 회원 id (CREATED 가 아니면 null)
+ */
+@Data
+@AllArgsConstructor
+public class MemberJoinResult {
+
+    private int index;
+    private Long id;
+    private Status status;
+    private String message;
+
+    public enum Status {
+        CREATED, DUPLICATE, INVALID
+    }
+
+    public static MemberJoinResult created(int index, Long id) {
+        return new MemberJoinResult(index, id, Status.CREATED, null);
+    }
+
+    public static MemberJoinResult duplicate(int index) {
+        return new MemberJoinResult(index, null, Status.DUPLICATE, "이미 존재하는 회원입니다.");
+    }
+
+    public static MemberJoinResult invalid(int index, String message) {
+        return new MemberJoinResult(index, null, Status.INVALID, message);
+    }
+}
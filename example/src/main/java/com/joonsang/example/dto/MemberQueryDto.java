@@ -0,0 +1,18 @@
+package com.joonsang.example.dto;
+
+import lombok.Data;
+
+/**
+ * 회원 목록 조회용 프로젝션 (엔티티를 만들지 않고 필요한 컬럼만 조회)
+ */
+@Data
+public class MemberQueryDto {
+
+    private Long id;
+    private String name;
+
+    public MemberQueryDto(Long id, String name) {
+        this.id = id;
+        this.name = name;
+    }
+}
@@ -0,0 +1,25 @@
+package com.joonsang.example.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 대량 주문 취소 결과
+ *
+ * - requested     : 요청한 주문 수 (중복 제외)
+ * - cancelled     : 취소 된 주문 수
+ * - rejectedIds   : 취소하지 않은 주문 (없는 주문 / 배송완료 / 이미 취소)
+ * - restoredStock : 상품 id -> 복구한 재고 수량
+ */
+@Data
+@AllArgsConstructor
+public class OrderCancelResult {
+
+    private int requested;
+    private int cancelled;
+    private List<Long> rejectedIds;
+    private Map<Long, Long> restoredStock;
+}
@@ -17,4 +17,8 @@ public class OrderItemQueryDto {
         this.orderPrice = orderPrice;
         this.count = count;
     }
+
+    public OrderItemQueryDto copy() {
+        return new OrderItemQueryDto(orderId, itemName, orderPrice, count);
+    }
 }
@@ -0,0 +1,20 @@
+package com.joonsang.example.dto;
+
+import lombok.Data;
+
+/**
+ * 주문 1건 요청 (회원, 상품, 수량)
+ */
+@Data
+public class OrderLineDto {
+
+    private Long memberId;
+    private Long itemId;
+    private int count;
+
+    public OrderLineDto(Long memberId, Long itemId, int count) {
+        this.memberId = memberId;
+        this.itemId = itemId;
+        this.count = count;
+    }
+}
@@ -8,6 +8,8 @@ import lombok.EqualsAndHashCode;
 import java.time.LocalDateTime;
 import java.util.List;
 
+import static java.util.stream.Collectors.toList;
+
 @Data
 @EqualsAndHashCode(of = "orderId")
 public class OrderQueryDto {
@@ -36,4 +38,19 @@ public class OrderQueryDto {
         this.address = address;
         this.value = value;
     }
+
+    /**
+     * 복사본 (캐시 된 DTO 를 요청마다 복사해서 돌려준다, 주문상품 목록도 복사)
+     */
+    public OrderQueryDto copy() {
+        OrderQueryDto copy = new OrderQueryDto(orderId, name, orderDate, orderStatus, address, copyItems(value));
+        copy.setOrderItems(copyItems(orderItems));
+        return copy;
+    }
+
+    private static List<OrderItemQueryDto> copyItems(List<OrderItemQueryDto> items) {
+        return items == null ? null : items.stream()
+                .map(OrderItemQueryDto::copy)
+                .collect(toList());
+    }
 }
@@ -21,4 +21,11 @@ public class OrderSimpleQueryDto {
         this.orderStatus = orderStatus;
         this.address = address;
     }
+
+    /**
+     * 복사본 (캐시 된 DTO 를 요청마다 복사해서 돌려준다, Address 는 변경 불가라서 공유)
+     */
+    public OrderSimpleQueryDto copy() {
+        return new OrderSimpleQueryDto(orderId, name, orderDate, orderStatus, address);
+    }
 }
\ No newline at end of file
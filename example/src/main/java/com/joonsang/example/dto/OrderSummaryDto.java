@@ -0,0 +1,43 @@
+package com.joonsang.example.dto;
+
+import com.fasterxml.jackson.annotation.JsonRawValue;
+import com.joonsang.example.domain.Address;
+import com.joonsang.example.domain.DeliveryStatus;
+import com.joonsang.example.domain.OrderStatus;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * order_summary 조회 결과
+ *
+ * - orderItems 는 저장된 JSON 을 파싱하지 않고 응답에 그대로 쓴다.
+ */
+@Data
+public class OrderSummaryDto {
+
+    private Long orderId;
+    private String name;
+    private LocalDateTime orderDate;
+    private OrderStatus orderStatus;
+    private DeliveryStatus deliveryStatus;
+    private Address address;
+    private int itemCount;
+    private long totalPrice;
+    @JsonRawValue
+    private String orderItems;
+
+    public OrderSummaryDto(Long orderId, String name, LocalDateTime orderDate, OrderStatus orderStatus,
+                           DeliveryStatus deliveryStatus, Address address, int itemCount, long totalPrice,
+                           String orderItems) {
+        this.orderId = orderId;
+        this.name = name;
+        this.orderDate = orderDate;
+        this.orderStatus = orderStatus;
+        this.deliveryStatus = deliveryStatus;
+        this.address = address;
+        this.itemCount = itemCount;
+        this.totalPrice = totalPrice;
+        this.orderItems = orderItems;
+    }
+}
@@ -0,0 +1,28 @@
+package com.joonsang.example.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * 조회 핸들러가 SQL 실행 수 제한(query.budget.max-statements)을 넘겼다. (query.budget.action = fail)
+ *
+ * - 요청이 아니라 서버 코드(N+1 등)의 문제이므로 500 으로 응답하고, reason 으로 다른 서버 에러와 구분한다.
+ */
+@ResponseStatus(code = HttpStatus.INTERNAL_SERVER_ERROR, reason = "Query budget exceeded")
+public class QueryBudgetExceededException extends RuntimeException {
+
+    public QueryBudgetExceededException() {
+    }
+
+    public QueryBudgetExceededException(String message) {
+        super(message);
+    }
+
+    public QueryBudgetExceededException(String message, Throwable cause) {
+        super(message, cause);
+    }
+
+    public QueryBudgetExceededException(Throwable cause) {
+        super(cause);
+    }
+}
@@ -0,0 +1,30 @@
+package com.joonsang.example.monitoring;
+
+import lombok.Getter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * 핸들러 하나가 실행 할 수 있는 SQL 수 제한
+ *
+ * - query.budget.max-statements : 0 이면 제한 없음
+ * - query.budget.action         : log (경고 로그) / fail (조회 요청만 응답 대신 500 에러, 변경 요청은 경고 로그)
+ */
+@Component
+@Getter
+public class QueryBudget {
+
+    @Value("${query.budget.max-statements:0}")
+    private int maxStatements;
+
+    @Value("${query.budget.action:log}")
+    private String action;
+
+    public boolean isExceeded(QueryCounter counter) {
+        return maxStatements > 0 && counter.getStatementCount() > maxStatements;
+    }
+
+    public boolean isFail() {
+        return "fail".equalsIgnoreCase(action);
+    }
+}
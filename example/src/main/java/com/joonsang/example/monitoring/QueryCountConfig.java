@@ -0,0 +1,49 @@
+package com.joonsang.example.monitoring;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostLoadEventListener;
+import org.hibernate.internal.SessionFactoryImpl;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import javax.annotation.PostConstruct;
+import javax.persistence.EntityManagerFactory;
+
+/**
+ * 요청 단위 SQL 실행 통계 (N+1 탐지)
+ *
+ * - SQL 수 : QueryCountStatementInspector (application.properties 에 등록)
+ * - JDBC 시간 : QueryCountSessionListener (application.properties 에 등록)
+ * - 엔티티 로딩 수 : PostLoad 이벤트 리스너 (여기서 등록)
+ */
+@Configuration
+@RequiredArgsConstructor
+public class QueryCountConfig implements WebMvcConfigurer {
+
+    private final EntityManagerFactory emf;
+    private final MeterRegistry meterRegistry;
+    private final QueryBudget queryBudget;
+
+    @PostConstruct
+    public void registerEntityLoadListener() {
+        EventListenerRegistry registry = emf.unwrap(SessionFactoryImpl.class)
+                .getServiceRegistry()
+                .getService(EventListenerRegistry.class);
+        registry.appendListeners(EventType.POST_LOAD, (PostLoadEventListener) event -> {
+            QueryCounter counter = QueryCounter.current();
+            if (counter != null) {
+                counter.increaseEntityLoadCount();
+            }
+        });
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(new QueryCountInterceptor(meterRegistry, queryBudget))
+                .addPathPatterns("/api/**");
+    }
+}
@@ -0,0 +1,89 @@
+package com.joonsang.example.monitoring;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 요청 단위로 SQL 실행 통계를 측정하고, 핸들러 메서드 별 Micrometer 메트릭으로 기록한다.
+ *
+ * - hibernate.request.statements     : 요청당 SQL 수
+ * - hibernate.request.jdbc.time      : 요청당 JDBC 실행 시간
+ * - hibernate.request.entity.loads   : 요청당 엔티티 로딩 수
+ *
+ * - afterCompletion 은 응답 직렬화(Jackson 의 Lazy 로딩 포함)까지 끝난 뒤 호출되므로, 메트릭은 전체 쿼리 수 기준이다.
+ * - 비동기 핸들러(StreamingResponseBody 등)는 요청 쓰레드에서 afterCompletion 이 호출되지 않는다.
+ *   afterConcurrentHandlingStarted 에서 ThreadLocal 을 비우고 측정 값은 request attribute 로 넘겨서,
+ *   async dispatch 의 preHandle 에서 이어서 측정한다. (풀에 반납 된 쓰레드의 다음 요청으로 새지 않도록)
+ */
+@Slf4j
+@RequiredArgsConstructor
+public class QueryCountInterceptor implements AsyncHandlerInterceptor {
+
+    private static final String COUNTER_ATTRIBUTE = QueryCountInterceptor.class.getName() + ".COUNTER";
+
+    private final MeterRegistry meterRegistry;
+    private final QueryBudget queryBudget;
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        QueryCounter suspended = (QueryCounter) request.getAttribute(COUNTER_ATTRIBUTE);
+        if (suspended != null) {
+            request.removeAttribute(COUNTER_ATTRIBUTE);
+            QueryCounter.resume(suspended);
+        } else {
+            QueryCounter.start();
+        }
+        return true;
+    }
+
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        QueryCounter counter = QueryCounter.current();
+        QueryCounter.clear();
+        if (counter != null) {
+            request.setAttribute(COUNTER_ATTRIBUTE, counter);
+        }
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        QueryCounter counter = QueryCounter.current();
+        QueryCounter.clear();
+        if (counter == null || !(handler instanceof HandlerMethod)) {
+            return;
+        }
+
+        String handlerName = toHandlerName((HandlerMethod) handler);
+        DistributionSummary.builder("hibernate.request.statements")
+                .tag("handler", handlerName)
+                .register(meterRegistry)
+                .record(counter.getStatementCount());
+        Timer.builder("hibernate.request.jdbc.time")
+                .tag("handler", handlerName)
+                .register(meterRegistry)
+                .record(counter.getJdbcTimeNanos(), TimeUnit.NANOSECONDS);
+        DistributionSummary.builder("hibernate.request.entity.loads")
+                .tag("handler", handlerName)
+                .register(meterRegistry)
+                .record(counter.getEntityLoadCount());
+
+        if (queryBudget.isExceeded(counter)) {
+            log.warn("Query budget exceeded: handler={}, statements={}, budget={}, jdbcTime={}ms, entityLoads={}",
+                    handlerName, counter.getStatementCount(), queryBudget.getMaxStatements(),
+                    counter.getJdbcTimeMillis(), counter.getEntityLoadCount());
+        }
+    }
+
+    static String toHandlerName(HandlerMethod handlerMethod) {
+        return handlerMethod.getBeanType().getSimpleName() + "." + handlerMethod.getMethod().getName();
+    }
+}
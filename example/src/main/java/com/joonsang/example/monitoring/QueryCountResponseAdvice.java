@@ -0,0 +1,57 @@
+package com.joonsang.example.monitoring;
+
+import com.joonsang.example.exception.QueryBudgetExceededException;
+import lombok.RequiredArgsConstructor;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+
+/**
+ * 응답 Body 를 쓰기 직전에 SQL 실행 통계를 응답 헤더로 추가한다.
+ *
+ * - @ResponseBody 는 postHandle 이전에 응답이 커밋되므로, 헤더는 이 시점에 추가해야 한다.
+ * - 그러므로 헤더 값은 핸들러 실행까지의 통계이다. (직렬화 중 Lazy 로딩은 메트릭에만 반영)
+ * - query.budget.action = fail 이면 제한을 넘긴 조회(GET / HEAD) 핸들러는 응답 대신 QueryBudgetExceededException 을 던진다.
+ *   이 시점에는 핸들러의 트랜잭션이 이미 커밋 되었으므로, 변경 요청(POST 등)을 실패로 응답하면 반영된 변경을 실패로 알리게 된다.
+ *   변경 요청은 제한을 넘겨도 경고 로그만 남긴다. (QueryCountInterceptor)
+ */
+@RestControllerAdvice
+@RequiredArgsConstructor
+public class QueryCountResponseAdvice implements ResponseBodyAdvice<Object> {
+
+    private final QueryBudget queryBudget;
+
+    @Override
+    public boolean supports(MethodParameter returnType, Class<? extends HttpMessageConverter<?>> converterType) {
+        return true;
+    }
+
+    @Override
+    public Object beforeBodyWrite(Object body, MethodParameter returnType, MediaType selectedContentType,
+                                  Class<? extends HttpMessageConverter<?>> selectedConverterType,
+                                  ServerHttpRequest request, ServerHttpResponse response) {
+        QueryCounter counter = QueryCounter.current();
+        if (counter == null) {
+            return body;
+        }
+
+        response.getHeaders().set("X-Query-Count", String.valueOf(counter.getStatementCount()));
+        response.getHeaders().set("X-Query-Time-Ms", String.valueOf(counter.getJdbcTimeMillis()));
+        response.getHeaders().set("X-Entity-Load-Count", String.valueOf(counter.getEntityLoadCount()));
+
+        if (queryBudget.isFail() && isReadRequest(request) && queryBudget.isExceeded(counter)) {
+            throw new QueryBudgetExceededException("쿼리 실행 수가 제한을 초과했습니다. statements="
+                    + counter.getStatementCount() + ", budget=" + queryBudget.getMaxStatements());
+        }
+        return body;
+    }
+
+    private static boolean isReadRequest(ServerHttpRequest request) {
+        return request.getMethod() == HttpMethod.GET || request.getMethod() == HttpMethod.HEAD;
+    }
+}
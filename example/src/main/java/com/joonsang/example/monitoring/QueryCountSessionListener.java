@@ -0,0 +1,37 @@
+package com.joonsang.example.monitoring;
+
+import org.hibernate.BaseSessionEventListener;
+
+/**
+ * JDBC 실행 시간을 잰다.
+ *
+ * - hibernate.session.events.auto 로 등록하면 Session 마다 생성 된다.
+ */
+public class QueryCountSessionListener extends BaseSessionEventListener {
+
+    @Override
+    public void jdbcExecuteStatementStart() {
+        QueryCounter counter = QueryCounter.current();
+        if (counter != null) {
+            counter.executeStart();
+        }
+    }
+
+    @Override
+    public void jdbcExecuteStatementEnd() {
+        QueryCounter counter = QueryCounter.current();
+        if (counter != null) {
+            counter.executeEnd();
+        }
+    }
+
+    @Override
+    public void jdbcExecuteBatchStart() {
+        jdbcExecuteStatementStart();
+    }
+
+    @Override
+    public void jdbcExecuteBatchEnd() {
+        jdbcExecuteStatementEnd();
+    }
+}
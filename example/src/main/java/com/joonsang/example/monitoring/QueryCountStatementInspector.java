@@ -0,0 +1,20 @@
+package com.joonsang.example.monitoring;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+/**
+ * Hibernate 가 SQL 을 준비할 때마다 호출 된다. SQL 은 변경하지 않고 개수만 센다.
+ *
+ * - hibernate.session_factory.statement_inspector 로 등록
+ */
+public class QueryCountStatementInspector implements StatementInspector {
+
+    @Override
+    public String inspect(String sql) {
+        QueryCounter counter = QueryCounter.current();
+        if (counter != null) {
+            counter.increaseStatementCount();
+        }
+        return sql;
+    }
+}
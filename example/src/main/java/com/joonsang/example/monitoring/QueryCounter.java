@@ -0,0 +1,64 @@
+package com.joonsang.example.monitoring;
+
+import lombok.Getter;
+
+/**
+ * 요청(쓰레드) 단위 SQL 실행 통계
+ *
+ * - QueryCountInterceptor 가 요청 시작 시 start(), 요청 종료 시 clear() 한다. (비동기 요청은 쓰레드를 옮길 때 clear / resume)
+ * - Hibernate 가 생성하는 StatementInspector / SessionEventListener / PostLoadEventListener 가 현재 쓰레드의 값을 증가시킨다.
+ * - 요청 쓰레드 밖(배치, 병렬 chunk 조회 등)에서 실행 된 SQL 은 집계되지 않는다.
+ */
+@Getter
+public class QueryCounter {
+
+    private static final ThreadLocal<QueryCounter> CURRENT = new ThreadLocal<>();
+
+    private int statementCount;     // 실행 된 SQL 수
+    private long jdbcTimeNanos;     // JDBC 실행 시간 합계
+    private int entityLoadCount;    // DB 에서 로딩 된 엔티티 수
+
+    private long executeStartNanos;
+
+    public static void start() {
+        CURRENT.set(new QueryCounter());
+    }
+
+    /**
+     * 다른 쓰레드에서 측정하던 값을 현재 쓰레드에서 이어서 측정 (async dispatch)
+     */
+    public static void resume(QueryCounter counter) {
+        CURRENT.set(counter);
+    }
+
+    /**
+     * 측정 중이 아니면 null
+     */
+    public static QueryCounter current() {
+        return CURRENT.get();
+    }
+
+    public static void clear() {
+        CURRENT.remove();
+    }
+
+    public long getJdbcTimeMillis() {
+        return jdbcTimeNanos / 1_000_000;
+    }
+
+    void increaseStatementCount() {
+        statementCount++;
+    }
+
+    void increaseEntityLoadCount() {
+        entityLoadCount++;
+    }
+
+    void executeStart() {
+        executeStartNanos = System.nanoTime();
+    }
+
+    void executeEnd() {
+        jdbcTimeNanos += System.nanoTime() - executeStartNanos;
+    }
+}
@@ -0,0 +1,44 @@
+package com.joonsang.example.monitoring;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.JCacheMetrics;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.cache.jcache.internal.JCacheRegionFactory;
+import org.hibernate.cache.spi.RegionFactory;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.springframework.stereotype.Component;
+
+import javax.cache.Cache;
+import javax.cache.CacheManager;
+import javax.persistence.EntityManagerFactory;
+
+/**
+ * 2차 캐시 region 별 JCache 통계 (cache.gets / cache.puts / cache.evictions / cache.removals)
+ *
+ * - hit / miss / put 은 Hibernate 통계로도 나오지만 (hibernate.second.level.cache.*), eviction 은 캐시 구현체에서만 알 수 있다.
+ * - ehcache.xml 의 enable-statistics 가 true 여야 값이 집계된다.
+ */
+@Component
+@RequiredArgsConstructor
+public class SecondLevelCacheMetrics implements MeterBinder {
+
+    private final EntityManagerFactory emf;
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        RegionFactory regionFactory = emf.unwrap(SessionFactoryImplementor.class)
+                .getCache()
+                .getRegionFactory();
+        if (!(regionFactory instanceof JCacheRegionFactory)) {
+            return;
+        }
+
+        CacheManager cacheManager = ((JCacheRegionFactory) regionFactory).getCacheManager();
+        for (String cacheName : cacheManager.getCacheNames()) {
+            Cache<Object, Object> cache = cacheManager.getCache(cacheName);
+            JCacheMetrics.monitor(registry, cache, Tags.of("cacheManager", "hibernate"));
+        }
+    }
+}
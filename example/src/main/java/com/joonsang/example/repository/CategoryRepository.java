@@ -0,0 +1,150 @@
+package com.joonsang.example.repository;
+
+import com.joonsang.example.domain.Category;
+import com.joonsang.example.domain.item.Item;
+import org.springframework.stereotype.Repository;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 카테고리 계층 조회 (Materialized path, Category.path 참고)
+ *
+ * - 깊이와 상관없이 하위 카테고리 / 조상 카테고리 / 하위 상품을 쿼리 1번으로 조회한다.
+ *   (parent / child 를 따라가면 깊이마다 쿼리 1번)
+ * - 기준 카테고리는 findOne 으로 조회한다. (2차 캐시)
+ */
+@Repository
+public class CategoryRepository {
+
+    @PersistenceContext
+    private EntityManager em;
+
+    public void save(Category category) {
+        em.persist(category);
+    }
+
+    public Category findOne(Long id) {
+        return em.find(Category.class, id);
+    }
+
+    /**
+     * 카테고리를 하위 트리째 newParent 밑으로 옮긴다.
+     *
+     * - 하위 카테고리를 하나씩 로딩하지 않고, path 접두어만 바꾸는 UPDATE 1번으로 하위 트리 전체의 path 를 바꾼다.
+     *   ("/1/5/7/..." -> "/9/5/7/...", idx_category_path 범위로 대상을 찾는다)
+     * - 영속성 컨텍스트에 이미 올라온 하위 카테고리의 path 는 갱신되지 않는다. (필요하면 다시 조회)
+     * - bulk UPDATE 이므로 Hibernate 가 category 2차 캐시 region 을 비운다.
+     */
+    public void move(Category category, Category newParent) {
+        String oldPrefix = category.getSubtreePath();
+        newParent.addChildCategory(category);
+        String newPrefix = category.getSubtreePath();
+        if (newPrefix.equals(oldPrefix)) {
+            return;
+        }
+        em.createQuery(
+                "update Category c" +
+                        " set c.path = concat(:newPrefix, substring(c.path, :from))" +
+                        " where c.path like :oldPrefix")
+                .setParameter("newPrefix", newPrefix)
+                .setParameter("from", oldPrefix.length() + 1)
+                .setParameter("oldPrefix", oldPrefix + "%")
+                .executeUpdate();
+    }
+
+    /**
+     * 하위 카테고리 전체 (자신 제외, 부모가 자식보다 먼저 나온다)
+     */
+    public List<Category> findDescendants(Category category) {
+        return em.createQuery(
+                "select c from Category c" +
+                        " where c.path like :prefix" +
+                        " order by c.path, c.id", Category.class)
+                .setParameter("prefix", category.getSubtreePath() + "%")
+                .getResultList();
+    }
+
+    /**
+     * 자신 + 하위 카테고리 전체
+     */
+    public List<Category> findSubtree(Category category) {
+        List<Category> descendants = findDescendants(category);
+        List<Category> result = new ArrayList<>(descendants.size() + 1);
+        result.add(category);
+        result.addAll(descendants);
+        return result;
+    }
+
+    /**
+     * 조상 카테고리 (루트 -> 부모 순, 루트 카테고리면 빈 리스트)
+     */
+    public List<Category> findAncestors(Category category) {
+        List<Long> ancestorIds = ancestorIds(category.getPath());
+        if (ancestorIds.isEmpty()) {
+            return Collections.emptyList();
+        }
+        return em.createQuery(
+                "select c from Category c" +
+                        " where c.id in :ids" +
+                        " order by length(c.path)", Category.class)
+                .setParameter("ids", ancestorIds)
+                .getResultList();
+    }
+
+    /**
+     * 카테고리와 하위 카테고리 전체에 속한 상품 (중복 제거)
+     *
+     * - "c.id = :id or c.path like :prefix" 는 OR 때문에 인덱스를 쓰지 못하고 category 전체를 읽는다.
+     *   자신의 상품(category_item 기본 키)과 하위 카테고리의 상품(idx_category_path 범위)을 UNION 으로 나눠서 쿼리 1번으로 조회한다.
+     * - JPQL 은 UNION 을 지원하지 않으므로 네이티브 쿼리 (SINGLE_TABLE 이므로 item 컬럼 전체를 읽어서 엔티티로 매핑)
+     */
+    @SuppressWarnings("unchecked")
+    public List<Item> findItemsUnder(Category category) {
+        return em.createNativeQuery(
+                "select i.* from item i" +
+                        " where i.item_id in (" +
+                        "   select ci.item_id from category_item ci" +
+                        "    where ci.category_id = :id" +
+                        "   union" +
+                        "   select ci.item_id from category c" +
+                        "     join category_item ci on ci.category_id = c.category_id" +
+                        "    where c.path like :prefix)" +
+                        " order by i.item_id", Item.class)
+                .setParameter("id", category.getId())
+                .setParameter("prefix", category.getSubtreePath() + "%")
+                .getResultList();
+    }
+
+    /**
+     * 카테고리 트리 전체 (id, 부모 id) - CategoryTree 만들기 용 (엔티티 X)
+     */
+    public List<Object[]> findAllTreeRows() {
+        return em.createQuery(
+                "select c.id, c.parent.id from Category c", Object[].class)
+                .getResultList();
+    }
+
+    /**
+     * 카테고리 - 상품 연결 전체 (카테고리 id, 상품 id) - CategoryTree 만들기 용
+     */
+    @SuppressWarnings("unchecked")
+    public List<Object[]> findAllItemLinks() {
+        return em.createNativeQuery("select category_id, item_id from category_item")
+                .getResultList();
+    }
+
+    // "/1/5/" -> [1, 5]
+    private static List<Long> ancestorIds(String path) {
+        List<Long> ids = new ArrayList<>();
+        int from = 1;
+        for (int to = path.indexOf('/', from); to > 0; to = path.indexOf('/', from)) {
+            ids.add(Long.valueOf(path.substring(from, to)));
+            from = to + 1;
+        }
+        return ids;
+    }
+}
@@ -0,0 +1,110 @@
+package com.joonsang.example.repository;
+
+import com.joonsang.example.domain.Delivery;
+import com.joonsang.example.domain.DeliveryStatus;
+import com.joonsang.example.domain.OrderStatus;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.stereotype.Repository;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public class DeliveryRepository {
+
+    @PersistenceContext
+    private EntityManager em;
+
+    public Delivery findOne(Long id) {
+        return em.find(Delivery.class, id);
+    }
+
+    /**
+     * 배송 row 잠금 (select ... for update, 배송 id 순)
+     *
+     * - 주문 취소(OrderRepository.findAllForCancel)와 같은 row 를 같은 순서로 잠근다.
+     *   잠금을 얻은 뒤 findChangeable 로 조회하므로, 먼저 커밋 된 주문 취소를 보고 판단한다.
+     */
+    public void lock(Collection<Long> deliveryIds) {
+        // JPQL 은 엔티티를 조회할 때만 for update 를 붙이므로 native query 로 잠근다. (배송 엔티티를 만들지 않는다)
+        em.createNativeQuery(
+                "select delivery_id from delivery" +
+                        " where delivery_id in (:deliveryIds)" +
+                        " order by delivery_id" +
+                        " for update")
+                .setParameter("deliveryIds", deliveryIds)
+                .getResultList();
+    }
+
+    /**
+     * 상태를 바꿀 수 있는 배송 (배송 id, 주문 id)
+     *
+     * - 현재 상태가 from 중 하나이고, 취소되지 않은 주문의 배송만 (엔티티 X)
+     */
+    public List<Object[]> findChangeable(Collection<Long> deliveryIds, Collection<DeliveryStatus> from) {
+        return em.createQuery(
+                "select d.id, o.id from Order o" +
+                        " join o.delivery d" +
+                        " where d.id in :deliveryIds" +
+                        " and d.status in :from" +
+                        " and o.status <> :cancel", Object[].class)
+                .setParameter("deliveryIds", deliveryIds)
+                .setParameter("from", from)
+                .setParameter("cancel", OrderStatus.CANCEL)
+                .getResultList();
+    }
+
+    /**
+     * 배송 상태 일괄 변경 (UPDATE 1번)
+     *
+     * - 조회 -> 변경 감지 -> flush 없이 DB 에서 바로 변경한다.
+     * - 현재 상태가 from 인 row 만 변경한다. (그 사이 다른 요청이 바꿨으면 변경 X)
+     * - JPQL bulk update 이므로 Hibernate 는 delivery 테이블의 2차 캐시 / 쿼리 캐시만 비운다.
+     * - 영속성 컨텍스트에 이미 있는 Delivery 엔티티는 갱신되지 않으므로 다시 읽는다.
+     *   (detach 하면 Order.delivery 가 준영속 엔티티를 가리키게 되어 cascade 에서 실패한다)
+     *
+     * @return 변경 된 row 수
+     */
+    public int updateStatus(Collection<Long> deliveryIds, Collection<DeliveryStatus> from, DeliveryStatus to) {
+        int updated = em.createQuery(
+                "update Delivery d set d.status = :to" +
+                        " where d.id in :deliveryIds" +
+                        " and d.status in :from")
+                .setParameter("to", to)
+                .setParameter("deliveryIds", deliveryIds)
+                .setParameter("from", from)
+                .executeUpdate();
+        refreshManaged(deliveryIds);
+        return updated;
+    }
+
+    /**
+     * 배송 중 현재 상태가 status 인 배송 id (updateStatus 후 실제로 변경 된 배송을 다시 조회한다)
+     *
+     * - H2 는 update ... returning 을 지원하지 않으므로 같은 트랜잭션에서 다시 조회한다.
+     */
+    public List<Long> findIdsByStatus(Collection<Long> deliveryIds, DeliveryStatus status) {
+        return em.createQuery(
+                "select d.id from Delivery d" +
+                        " where d.id in :deliveryIds" +
+                        " and d.status = :status", Long.class)
+                .setParameter("deliveryIds", deliveryIds)
+                .setParameter("status", status)
+                .getResultList();
+    }
+
+    // 영속성 컨텍스트에 이미 있는 Delivery 만 다시 읽는다. (없으면 조회 X)
+    private void refreshManaged(Collection<Long> deliveryIds) {
+        SessionImplementor session = em.unwrap(SessionImplementor.class);
+        EntityPersister persister = session.getFactory().getMetamodel().entityPersister(Delivery.class);
+        for (Long deliveryId : deliveryIds) {
+            Object delivery = session.getPersistenceContext().getEntity(session.generateEntityKey(deliveryId, persister));
+            if (delivery != null) {
+                em.refresh(delivery);
+            }
+        }
+    }
+}
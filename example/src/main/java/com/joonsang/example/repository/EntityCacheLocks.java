@@ -0,0 +1,67 @@
+package com.joonsang.example.repository;
+
+import org.hibernate.cache.spi.access.EntityDataAccess;
+import org.hibernate.cache.spi.access.SoftLock;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * native / JDBC UPDATE 로 직접 변경한 엔티티의 2차 캐시 잠금
+ *
+ * - Hibernate 가 엔티티를 UPDATE 할 때처럼, UPDATE 전에 캐시 항목을 잠그고(soft lock) 트랜잭션이 끝나면 푼다.
+ * - 잠겨 있는 동안 다른 트랜잭션이 DB 에서 읽은 엔티티는 캐시에 넣지 않는다. (putFromLoad X)
+ *   푼 뒤에도 잠금 이전에 시작한 트랜잭션이 읽은 값은 넣지 않으므로, 커밋 전 row 가 다시 캐시되지 않는다.
+ * - 커밋 후에 evict 만 하면, 커밋 전에 row 를 읽은 트랜잭션이 evict 뒤에 이전 값을 다시 넣을 수 있다.
+ * - 엔티티 region 전체를 비우는 addSynchronizedEntityClass 와 달리 변경한 id 만 잠근다.
+ */
+final class EntityCacheLocks {
+
+    private EntityCacheLocks() {
+    }
+
+    /**
+     * 캐시 항목을 잠그고, 진행 중인 트랜잭션이 끝나면(커밋 / 롤백) 푼다. (트랜잭션이 없으면 바로 evict)
+     *
+     * - UPDATE 를 실행하기 전에 호출한다.
+     */
+    static void lockUntilCompletion(EntityManager em, Class<?> entityClass, Collection<?> ids) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            ids.forEach(id -> em.getEntityManagerFactory().getCache().evict(entityClass, id));
+            return;
+        }
+
+        SharedSessionContractImplementor session = em.unwrap(SharedSessionContractImplementor.class);
+        SessionFactoryImplementor factory = session.getFactory();
+        EntityPersister persister = factory.getMetamodel().entityPersister(entityClass);
+        if (!persister.canWriteToCache()) {
+            return;
+        }
+
+        EntityDataAccess access = persister.getCacheAccessStrategy();
+        Map<Object, SoftLock> locks = new LinkedHashMap<>();
+        for (Object id : ids) {
+            Object key = access.generateCacheKey(id, persister, factory, session.getTenantIdentifier());
+            if (!locks.containsKey(key)) {
+                locks.put(key, access.lockItem(session, key, null));
+            }
+        }
+
+        List<Map.Entry<Object, SoftLock>> entries = new ArrayList<>(locks.entrySet());
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                entries.forEach(e -> access.unlockItem(session, e.getKey(), e.getValue()));
+            }
+        });
+    }
+}
@@ -0,0 +1,148 @@
+package com.joonsang.example.repository;
+
+import com.joonsang.example.domain.item.Item;
+import com.joonsang.example.dto.ItemCategoryQueryDto;
+import com.joonsang.example.dto.ItemQueryDto;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.query.NativeQuery;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+@Repository
+@RequiredArgsConstructor
+public class ItemRepository {
+
+    /**
+     * 재고 차감 native query 의 query space
+     *
+     * - query space 를 지정하지 않은 native update 는 Hibernate 가 2차 캐시 전체를 비운다.
+     * - 엔티티 테이블이 아닌 이름을 지정해서 전체 비우기를 막고, 변경한 상품만 직접 잠근다. (EntityCacheLocks)
+     */
+    private static final String STOCK_QUERY_SPACE = "item_stock";
+
+    @PersistenceContext
+    private EntityManager em;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public void save(Item item) {
+        if (item.getId() == null) {
+            em.persist(item);
+        } else {
+            em.merge(item);
+        }
+    }
+
+    public Item findOne(Long id) {
+        return em.find(Item.class, id);
+    }
+
+    public List<Item> findAll() {
+        return em.createQuery("select i from Item i", Item.class)
+                .getResultList();
+    }
+
+    /**
+     * 상품 목록 (Keyset 페이징, 카테고리 제외)
+     */
+    public List<ItemQueryDto> findItemPage(Long lastItemId, int limit) {
+        return em.createQuery(
+                "select new com.joonsang.example.dto.ItemQueryDto(i.id, i.name, i.price, i.stockQuantity)" +
+                        " from Item i" +
+                        " where i.id > :lastItemId" +
+                        " order by i.id", ItemQueryDto.class)
+                .setParameter("lastItemId", lastItemId == null ? 0L : lastItemId)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
+    /**
+     * 상품 목록 + 카테고리 (쿼리 2번)
+     *
+     * - 상품마다 Item.categories 를 지연 로딩하면 상품 수만큼 쿼리가 나간다. (N + 1)
+     * - 한 페이지의 상품 id 로 카테고리를 IN 절 1번에 조회해서 채운다.
+     */
+    public List<ItemQueryDto> findItemPageWithCategories(Long lastItemId, int limit) {
+        List<ItemQueryDto> items = findItemPage(lastItemId, limit);
+        Map<Long, List<ItemCategoryQueryDto>> categoryMap = findCategoryMap(items.stream()
+                .map(ItemQueryDto::getId)
+                .collect(Collectors.toList()));
+        items.forEach(i -> i.setCategories(categoryMap.getOrDefault(i.getId(), Collections.emptyList())));
+        return items;
+    }
+
+    /**
+     * 상품별 카테고리 (category_item 을 IN 절 1번으로 조회, idx_category_item_item)
+     */
+    public Map<Long, List<ItemCategoryQueryDto>> findCategoryMap(Collection<Long> itemIds) {
+        if (itemIds.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        return em.createQuery(
+                "select new com.joonsang.example.dto.ItemCategoryQueryDto(i.id, c.id, c.name)" +
+                        " from Category c" +
+                        " join c.items i" +
+                        " where i.id in :itemIds" +
+                        " order by c.id", ItemCategoryQueryDto.class)
+                .setParameter("itemIds", itemIds)
+                .getResultStream()
+                .collect(Collectors.groupingBy(ItemCategoryQueryDto::getItemId));
+    }
+
+    /**
+     * DB 의 현재 재고 (엔티티 / 2차 캐시를 거치지 않음)
+     */
+    public Integer findStockQuantity(Long itemId) {
+        List<Integer> result = em.createQuery("select i.stockQuantity from Item i where i.id = :itemId", Integer.class)
+                .setParameter("itemId", itemId)
+                .getResultList();
+        return result.isEmpty() ? null : result.get(0);
+    }
+
+    /**
+     * 상품별 재고 변경량을 JDBC batch UPDATE 로 한번에 반영 (StockLedger)
+     *
+     * - 변경량이 음수면 재고가 늘어난다. (예약 취소)
+     */
+    public void decreaseStocks(Map<Long, Long> deltas) {
+        List<Object[]> args = new ArrayList<>(deltas.size());
+        deltas.forEach((itemId, delta) -> args.add(new Object[]{delta, itemId}));
+        EntityCacheLocks.lockUntilCompletion(em, Item.class, deltas.keySet());
+        jdbcTemplate.batchUpdate(
+                "update item" +
+                        " set stock_quantity = stock_quantity - ?, version = version + 1" +
+                        " where item_id = ?", args);
+    }
+
+    /**
+     * 재고 조건부 차감
+     *
+     * - 재고가 충분할 때만 DB 에서 직접 차감한다. (조회 -> 변경 -> flush 없이 UPDATE 1번)
+     * - 읽고 쓰는 사이에 다른 트랜잭션이 끼어들 틈이 없으므로 초과 판매가 발생하지 않고, 재시도도 필요 없다.
+     * - 영속성 컨텍스트의 Item 엔티티는 갱신되지 않는다. (필요하면 다시 조회)
+     *
+     * @return 변경 된 row 수 (0 이면 재고 부족 또는 상품 없음)
+     */
+    public int decreaseStock(Long itemId, int quantity) {
+        EntityCacheLocks.lockUntilCompletion(em, Item.class, Collections.singleton(itemId));
+        return em.createNativeQuery(
+                "update item" +
+                        " set stock_quantity = stock_quantity - :quantity, version = version + 1" +
+                        " where item_id = :itemId" +
+                        " and stock_quantity >= :quantity")
+                .unwrap(NativeQuery.class)
+                .addSynchronizedQuerySpace(STOCK_QUERY_SPACE)
+                .setParameter("quantity", quantity)
+                .setParameter("itemId", itemId)
+                .executeUpdate();
+    }
+}
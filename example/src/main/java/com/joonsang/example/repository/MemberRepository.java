@@ -1,14 +1,28 @@
 package com.joonsang.example.repository;
 
 import com.joonsang.example.domain.Member;
+import com.joonsang.example.dto.MemberQueryDto;
+import org.hibernate.query.NativeQuery;
 import org.springframework.stereotype.Repository;
+import javax.persistence.CacheStoreMode;
 import javax.persistence.EntityManager;
 import javax.persistence.PersistenceContext;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
+import java.util.function.Consumer;
 
 @Repository
 public class MemberRepository {
 
+    /**
+     * 이름 변경 native query 의 query space
+     *
+     * - query space 를 지정하지 않은 native update 는 Hibernate 가 2차 캐시 전체를 비운다.
+     * - 엔티티 테이블이 아닌 이름을 지정해서 전체 비우기를 막고, 변경한 회원 1건만 직접 잠근다. (EntityCacheLocks)
+     */
+    private static final String NAME_QUERY_SPACE = "member_name";
+
     @PersistenceContext
     private EntityManager em;
 
@@ -24,10 +38,97 @@ public class MemberRepository {
         return em.createQuery("select m from Member m", Member.class)
                 .getResultList();
     }
+    /**
+     * 회원 목록 Keyset(Seek) 페이징 + DTO 프로젝션
+     *
+     * - member_id(PK) 인덱스로 lastMemberId 다음부터 limit 건만 읽는다. (몇 번째 페이지든 비용이 같다)
+     * - 엔티티가 아닌 DTO 로 조회하므로 영속성 컨텍스트 / 2차 캐시에 올라가지 않는다.
+     */
+    public List<MemberQueryDto> findMemberDtos(Long lastMemberId, int limit) {
+        return em.createQuery(
+                "select new com.joonsang.example.dto.MemberQueryDto(m.id, m.name)" +
+                        " from Member m" +
+                        " where m.id > :lastMemberId" +
+                        " order by m.id", MemberQueryDto.class)
+                .setParameter("lastMemberId", lastMemberId == null ? 0L : lastMemberId)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
     public List<Member> findByName(String name) {
         return em.createQuery("select m from Member m where m.name = :name",
                 Member.class)
                 .setParameter("name", name)
                 .getResultList();
     }
+
+    /**
+     * 이름 변경 (UPDATE 1번)
+     *
+     * - 조회 -> 변경 감지 -> flush 없이 DB 에서 바로 변경한다.
+     * - 영속성 컨텍스트의 Member 엔티티는 갱신되지 않는다. (필요하면 다시 조회)
+     * - 2차 캐시의 회원은 UPDATE 전에 잠그고 트랜잭션이 끝나면 풀어서, 커밋 전 이름이 다시 캐시되지 않는다.
+     *
+     * @return 변경 된 row 수 (0 이면 없는 회원)
+     */
+    public int updateName(Long id, String name) {
+        EntityCacheLocks.lockUntilCompletion(em, Member.class, Collections.singleton(id));
+        return em.createNativeQuery("update member set name = :name where member_id = :id")
+                .unwrap(NativeQuery.class)
+                .addSynchronizedQuerySpace(NAME_QUERY_SPACE)
+                .setParameter("name", name)
+                .setParameter("id", id)
+                .executeUpdate();
+    }
+
+    /**
+     * 이름 존재 여부
+     *
+     * - 엔티티를 만들지 않고 uk_member_name 인덱스에서 1건만 확인한다.
+     */
+    public boolean existsByName(String name) {
+        return !em.createQuery("select m.id from Member m where m.name = :name", Long.class)
+                .setParameter("name", name)
+                .setMaxResults(1)
+                .getResultList()
+                .isEmpty();
+    }
+
+    /**
+     * 이미 존재하는 이름 (대량 회원가입 중복 검사)
+     *
+     * - names 중 DB 에 있는 이름만 돌려준다. (where name in (...) 1번)
+     */
+    public List<String> findNamesIn(Collection<String> names) {
+        return em.createQuery("select m.name from Member m where m.name in :names", String.class)
+                .setParameter("names", names)
+                .getResultList();
+    }
+
+    /**
+     * 전체 회원 이름 (Streaming)
+     */
+    public void forEachName(Consumer<String> action) {
+        em.createQuery("select m.name from Member m", String.class)
+                .getResultStream()
+                .forEach(action);
+    }
+
+    public void flush() {
+        em.flush();
+    }
+
+    public void flushAndClear() {
+        em.flush();
+        em.clear();
+    }
+
+    /**
+     * 현재 트랜잭션에서 저장 / 조회한 회원을 2차 캐시에 넣지 않는다. (캐시 조회는 그대로)
+     *
+     * - 대량 가입한 회원을 모두 캐시에 넣으면 region 크기를 넘겨서 put 마다 eviction 이 일어난다.
+     */
+    public void bypassCacheStore() {
+        em.setProperty("javax.persistence.cache.storeMode", CacheStoreMode.BYPASS);
+    }
 }
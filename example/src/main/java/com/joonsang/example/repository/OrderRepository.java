@@ -5,20 +5,100 @@ import com.joonsang.example.dto.OrderFlatDto;
 import com.joonsang.example.dto.OrderItemQueryDto;
 import com.joonsang.example.dto.OrderQueryDto;
 import com.joonsang.example.dto.OrderSimpleQueryDto;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Repository;
 
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
 import javax.persistence.PersistenceContext;
+import javax.persistence.PersistenceUnit;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Repository
 public class OrderRepository {
 
+    private static final String FLAT_QUERY =
+            "select new com.joonsang.example.dto.OrderFlatDto(o.id, m.name, o.orderDate, o.status, d.address, i.name, oi.orderPrice, oi.count)" +
+                    " from Order o" +
+                    " join o.member m" +
+                    " join o.delivery d" +
+                    " join o.orderItems oi" +
+                    " join oi.item i" +
+                    " order by o.id";
+
     @PersistenceContext
     private EntityManager em;
 
+    @PersistenceUnit
+    private EntityManagerFactory emf;
+
+    @Value("${order.query.in-chunk-size:100}")
+    private int inChunkSize;
+
+    @Value("${order.query.parallel-chunks:false}")
+    private boolean parallelChunks;
+
+    @Value("${order.query.parallel-threads:4}")
+    private int parallelThreads;
+
+    @Value("${spring.datasource.hikari.maximum-pool-size:10}")
+    private int connectionPoolSize;
+
+    /** chunk 병렬 조회 전용 쓰레드 (parallel-chunks = true 일 때만 만든다) */
+    private ExecutorService chunkExecutor;
+
+    @Value("${order.export.fetch-size:1000}")
+    private int exportFetchSize;
+
+    /**
+     * 설정 확인 + chunk 병렬 조회 쓰레드 생성
+     *
+     * - parallelStream 은 JVM 공용 ForkJoinPool 을 쓰므로 다른 작업과 쓰레드를 나눠 쓰고, 동시에 쓰는 커넥션 수도 제한할 수 없다.
+     *   전용 고정 크기 쓰레드 풀을 쓰고, 쓰레드 수는 커넥션 풀보다 작게 둔다. (요청 쓰레드가 쓸 커넥션을 남긴다)
+     */
+    @PostConstruct
+    public void init() {
+        if (inChunkSize <= 0) {
+            throw new IllegalStateException("order.query.in-chunk-size 는 1 이상이어야 합니다. in-chunk-size=" + inChunkSize);
+        }
+        if (!parallelChunks) {
+            return;
+        }
+        if (parallelThreads <= 0 || parallelThreads >= connectionPoolSize) {
+            throw new IllegalStateException("order.query.parallel-threads 는 1 이상, 커넥션 풀 크기 미만이어야 합니다. parallel-threads="
+                    + parallelThreads + ", maximum-pool-size=" + connectionPoolSize);
+        }
+        AtomicInteger threadNumber = new AtomicInteger();
+        chunkExecutor = Executors.newFixedThreadPool(parallelThreads, runnable -> {
+            Thread thread = new Thread(runnable, "order-item-chunk-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (chunkExecutor != null) {
+            chunkExecutor.shutdownNow();
+        }
+    }
+
     /**
      * 참고 : MVC 흐름 (의존 관계 측면에서 Repository 가 Controller 의 DTO 를 바라보면 이상해지므로... 별도의 DTO 패키지 생성)
      *
@@ -52,10 +132,59 @@ public class OrderRepository {
      */
 
 
+    public void save(Order order) {
+        em.persist(order);
+    }
+
+    /**
+     * 쌓인 insert 를 batch 로 DB 에 반영하고, 영속성 컨텍스트를 비운다. (대량 주문 시 메모리 관리)
+     */
+    public void flushAndClear() {
+        em.flush();
+        em.clear();
+    }
+
     public List<Order> findAll() {
         return em.createQuery("select m from Order m", Order.class).getResultList();
     }
 
+    /**
+     * 취소할 주문 + 배송 (배송 row 잠금)
+     *
+     * - 먼저 주문들의 배송 row 를 배송 id 순으로 select ... for update 한 다음 주문을 조회한다.
+     * - 배송 상태 변경(DeliveryRepository.lock)도 같은 row 를 같은 순서로 잠그므로, 같은 주문의 취소와 배송 완료는 차례로 처리된다.
+     *   (잠금을 얻은 뒤에 조회하므로, 먼저 커밋 된 취소 / 배송 완료를 보고 판단한다)
+     */
+    public List<Order> findAllForCancel(Collection<Long> orderIds) {
+        // JPQL 은 엔티티를 조회할 때만 for update 를 붙이므로 (배송 엔티티를 만들지 않도록) native query 로 잠근다.
+        em.createNativeQuery(
+                "select d.delivery_id from delivery d" +
+                        " where d.delivery_id in (select o.delivery_id from orders o where o.order_id in (:orderIds))" +
+                        " order by d.delivery_id" +
+                        " for update")
+                .setParameter("orderIds", orderIds)
+                .getResultList();
+        return em.createQuery(
+                "select o from Order o" +
+                        " join fetch o.delivery d" +
+                        " where o.id in :orderIds", Order.class)
+                .setParameter("orderIds", orderIds)
+                .getResultList();
+    }
+
+    /**
+     * 주문들의 상품별 주문 수량 합계 (취소 재고 복구, 엔티티 X)
+     */
+    public Map<Long, Long> findOrderedQuantities(Collection<Long> orderIds) {
+        return em.createQuery(
+                "select oi.item.id, sum(oi.count) from OrderItem oi" +
+                        " where oi.order.id in :orderIds" +
+                        " group by oi.item.id", Object[].class)
+                .setParameter("orderIds", orderIds)
+                .getResultStream()
+                .collect(Collectors.toMap(row -> (Long) row[0], row -> (Long) row[1]));
+    }
+
     /**
      * 주문 조회 V3
      */
@@ -68,7 +197,7 @@ public class OrderRepository {
     }
 
     /**
-     * 주문 조회 V4
+     * 주문 조회 V4 (캐시는 OrderListCache)
      */
     public List<OrderSimpleQueryDto> findOrderDtos() {
 
@@ -124,6 +253,24 @@ public class OrderRepository {
                 .getResultList();
     }
 
+    /**
+     * 주문 컬렉션 조회 V3.1 (Keyset 페이징)
+     *
+     * - offset 방식은 앞 페이지의 row 를 모두 읽고 버리므로, 뒤 페이지로 갈수록 느려진다.
+     * - 마지막으로 조회한 order_id 이후부터 PK 인덱스를 타고 limit 만큼만 읽으므로, N 페이지도 1 페이지와 비용이 같다.
+     */
+    public List<Order> findAllWithMemberDelivery(Long lastOrderId, int limit) {
+        return em.createQuery(
+                "select o from Order o" +
+                        " join fetch o.member m" +
+                        " join fetch o.delivery d" +
+                        " where o.id > :lastOrderId" +
+                        " order by o.id", Order.class)
+                .setParameter("lastOrderId", lastOrderId == null ? 0L : lastOrderId)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
 
     /**
      * 주문 컬렉션 조회 V4
@@ -177,13 +324,14 @@ public class OrderRepository {
      *
      * - Query: 루트 1번, 컬렉션 1번
      * - 데이터를 한꺼번에 처리할 때 많이 사용하는 방식
+     * - 결과는 OrderListCache 로 캐시한다.
      */
     public List<OrderQueryDto> findAllByDto_optimization() {
 
         // XToOne 모두 조회 -> 1번의 쿼리
         List<OrderQueryDto> result = findOrders();
 
-        // OneToX(OrderItem) 컬렉션을 MAP 한방에 조회 -> 1번의 쿼리
+        // OneToX(OrderItem) 컬렉션을 MAP 한방에 조회 -> chunk 수 만큼의 쿼리 (chunk 크기 이하면 1번)
         Map<Long, List<OrderItemQueryDto>> orderItemMap = findOrderItemMap(toOrderIds(result));
 
         // OneToX 모두 조회 -> 추가 쿼리 실행X
@@ -197,16 +345,134 @@ public class OrderRepository {
                 .collect(Collectors.toList());
     }
 
+    /**
+     * OrderItem 을 IN 절로 조회
+     *
+     * - 주문 ID 전체를 IN 절 하나에 바인딩하면 DB 의 파라미터 개수 제한을 넘길 수 있고,
+     *   ID 개수마다 SQL 모양이 달라져서 실행 계획 캐시를 재사용하지 못한다.
+     * - 그리하여 order.query.in-chunk-size 크기로 잘라서 조회한다.
+     *   마지막 chunk 는 마지막 ID 를 반복해서 채워 넣어(padding) 항상 같은 모양의 SQL 이 실행되도록 한다.
+     * - order.query.parallel-chunks = true 이면 chunk 마다 별도의 EntityManager(커넥션)로 병렬 조회한다.
+     *   전용 쓰레드 풀(order.query.parallel-threads)에서 실행하므로, 모든 요청을 합쳐도 병렬 조회에 쓰는 커넥션은 쓰레드 수를 넘지 않는다.
+     */
     private Map<Long, List<OrderItemQueryDto>> findOrderItemMap(List<Long> orderIds) {
-        List<OrderItemQueryDto> orderItems = em.createQuery(
+        List<List<Long>> chunks = toPaddedChunks(orderIds, inChunkSize);
+
+        Stream<OrderItemQueryDto> orderItems;
+        if (chunkExecutor != null && chunks.size() > 1) {
+            orderItems = findOrderItemsInParallel(chunks).stream();
+        } else {
+            orderItems = chunks.stream()
+                    .flatMap(chunk -> findOrderItems(em, chunk).stream());
+        }
+        return orderItems.collect(Collectors.groupingBy(OrderItemQueryDto::getOrderId));
+    }
+
+    private List<OrderItemQueryDto> findOrderItemsInParallel(List<List<Long>> chunks) {
+        List<Future<List<OrderItemQueryDto>>> futures = new ArrayList<>(chunks.size());
+        for (List<Long> chunk : chunks) {
+            futures.add(chunkExecutor.submit(() -> findOrderItemsInNewEntityManager(chunk)));
+        }
+        List<OrderItemQueryDto> orderItems = new ArrayList<>();
+        try {
+            for (Future<List<OrderItemQueryDto>> future : futures) {
+                orderItems.addAll(future.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        } finally {
+            futures.forEach(future -> future.cancel(true));
+        }
+        return orderItems;
+    }
+
+    private List<OrderItemQueryDto> findOrderItemsInNewEntityManager(List<Long> orderIds) {
+        EntityManager chunkEm = emf.createEntityManager();
+        try {
+            return findOrderItems(chunkEm, orderIds);
+        } finally {
+            chunkEm.close();
+        }
+    }
+
+    private List<OrderItemQueryDto> findOrderItems(EntityManager em, List<Long> orderIds) {
+        return em.createQuery(
                 "select new com.joonsang.example.dto.OrderItemQueryDto(oi.order.id, i.name, oi.orderPrice, oi.count)" +
                         " from OrderItem oi" +
                         " join oi.item i" +
-                        " where oi.order.id in :orders", OrderItemQueryDto.class)
+                        " where oi.order.id in :orderIds", OrderItemQueryDto.class)
                 .setParameter("orderIds", orderIds)
                 .getResultList();
-        return orderItems.stream()
-                .collect(Collectors.groupingBy(OrderItemQueryDto::getOrderId));
+    }
+
+    /**
+     * chunkSize 크기의 리스트로 나누고, 모자란 마지막 chunk 는 마지막 ID 로 채운다.
+     * (IN 절의 중복 값은 결과에 영향을 주지 않는다)
+     */
+    static List<List<Long>> toPaddedChunks(List<Long> ids, int chunkSize) {
+        List<List<Long>> chunks = new ArrayList<>();
+        for (int from = 0; from < ids.size(); from += chunkSize) {
+            List<Long> chunk = new ArrayList<>(ids.subList(from, Math.min(from + chunkSize, ids.size())));
+            Long last = chunk.get(chunk.size() - 1);
+            while (chunk.size() < chunkSize) {
+                chunk.add(last);
+            }
+            chunks.add(chunk);
+        }
+        return chunks;
+    }
+
+    /**
+     * 주문 전체 내보내기 (Streaming)
+     *
+     * - List 로 한번에 담지 않고, forward-only 커서(ScrollableResults)로 한 row 씩 읽는다.
+     * - 주문을 order.export.fetch-size 만큼 모으면 OrderItem 을 IN 절 1번으로 채워서 action 에 넘기고,
+     *   영속성 컨텍스트를 비운다. -> 테이블 크기와 상관없이 힙 사용량은 chunk 크기로 일정하다.
+     * - 트랜잭션(커넥션)이 열려 있는 동안에만 호출해야 한다.
+     */
+    public void scrollAllByDto(Consumer<OrderQueryDto> action) {
+        ScrollableResults results = em.createQuery(
+                "select new com.joonsang.example.dto.OrderQueryDto(o.id, m.name, o.orderDate, o.status, d.address)" +
+                        " from Order o" +
+                        " join o.member m" +
+                        " join o.delivery d" +
+                        " order by o.id", OrderQueryDto.class)
+                .unwrap(org.hibernate.query.Query.class)
+                .setFetchSize(exportFetchSize)
+                .setReadOnly(true)
+                .scroll(ScrollMode.FORWARD_ONLY);
+
+        try {
+            List<OrderQueryDto> chunk = new ArrayList<>(exportFetchSize);
+            while (results.next()) {
+                chunk.add((OrderQueryDto) results.get(0));
+                if (chunk.size() == exportFetchSize) {
+                    flushExportChunk(chunk, action);
+                }
+            }
+            flushExportChunk(chunk, action);
+        } finally {
+            results.close();
+        }
+    }
+
+    private void flushExportChunk(List<OrderQueryDto> chunk, Consumer<OrderQueryDto> action) {
+        if (chunk.isEmpty()) {
+            return;
+        }
+        Map<Long, List<OrderItemQueryDto>> orderItemMap = findOrderItemMap(toOrderIds(chunk));
+        for (OrderQueryDto order : chunk) {
+            order.setOrderItems(orderItemMap.get(order.getOrderId()));
+            action.accept(order);
+        }
+        chunk.clear();
+        em.clear();
     }
 
     /**
@@ -218,13 +484,55 @@ public class OrderRepository {
      * - 페이징 불가능
      */
     public List<OrderFlatDto> findAllByDto_flat() {
-        return em.createQuery(
-                "select new com.joonsang.example.dto.OrderFlatDto(o.id, m.name, o.orderDate, o.status, d.address, i.name, oi.orderPrice, oi.count)" +
-                        " from Order o" +
-                        " join o.member m" +
-                        " join o.delivery d" +
-                        " join o.orderItems oi" +
-                        " join oi.item i", OrderFlatDto.class)
+        return em.createQuery(FLAT_QUERY, OrderFlatDto.class)
                 .getResultList();
     }
+
+    /**
+     * 주문 컬렉션 조회 V6 (forEachByDto_flat 결과를 리스트로, 캐시는 OrderListCache)
+     */
+    public List<OrderQueryDto> findAllByDto_flatGrouped() {
+        List<OrderQueryDto> result = new ArrayList<>();
+        forEachByDto_flat(result::add);
+        return result;
+    }
+
+    /**
+     * 주문 컬렉션 조회 V6 (Streaming Group By)
+     *
+     * - o.id 로 정렬된 flat row 를 한 row 씩 읽으면서, order_id 가 바뀌는 시점에 완성된 OrderQueryDto 를 action 에 넘긴다.
+     * - groupingBy(HashMap) 처럼 전체 row 를 모아둘 필요가 없으므로, 메모리는 주문 1건의 OrderItem 만큼만 사용한다.
+     * - 정렬 기준이 있으므로 결과 순서가 항상 같다.
+     */
+    public void forEachByDto_flat(Consumer<OrderQueryDto> action) {
+        try (Stream<OrderFlatDto> flats = em.createQuery(FLAT_QUERY, OrderFlatDto.class).getResultStream()) {
+            OrderFlatDto current = null;
+            List<OrderItemQueryDto> orderItems = null;
+
+            Iterator<OrderFlatDto> iterator = flats.iterator();
+            while (iterator.hasNext()) {
+                OrderFlatDto flat = iterator.next();
+                if (current == null || !current.getOrderId().equals(flat.getOrderId())) {
+                    if (current != null) {
+                        action.accept(toOrderQueryDto(current, orderItems));
+                    }
+                    current = flat;
+                    orderItems = new ArrayList<>();
+                }
+                orderItems.add(new OrderItemQueryDto(flat.getOrderId(), flat.getItemName(), flat.getOrderPrice(), flat.getCount()));
+            }
+            if (current != null) {
+                action.accept(toOrderQueryDto(current, orderItems));
+            }
+        }
+    }
+
+    private OrderQueryDto toOrderQueryDto(OrderFlatDto flat, List<OrderItemQueryDto> orderItems) {
+        return new OrderQueryDto(flat.getOrderId(),
+                                 flat.getName(),
+                                 flat.getOrderDate(),
+                                 flat.getOrderStatus(),
+                                 flat.getAddress(),
+                                 orderItems);
+    }
 }
@@ -0,0 +1,140 @@
+package com.joonsang.example.repository;
+
+import com.joonsang.example.domain.DeliveryStatus;
+import com.joonsang.example.domain.Order;
+import com.joonsang.example.domain.OrderSummary;
+import com.joonsang.example.dto.OrderItemQueryDto;
+import com.joonsang.example.dto.OrderSummaryDto;
+import org.springframework.stereotype.Repository;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static java.util.stream.Collectors.groupingBy;
+
+@Repository
+public class OrderSummaryRepository {
+
+    private static final String DTO_SELECT =
+            "select new com.joonsang.example.dto.OrderSummaryDto(" +
+                    "s.orderId, s.memberName, s.orderDate, s.status, s.deliveryStatus, s.address," +
+                    " s.itemCount, s.totalPrice, s.orderItems)" +
+                    " from OrderSummary s";
+
+    @PersistenceContext
+    private EntityManager em;
+
+    /**
+     * 주문 목록 (order_summary 1번 조회, Keyset 페이징)
+     *
+     * - 조인 없이 PK(order_id) 인덱스로 lastOrderId 다음부터 limit 건만 읽는다.
+     */
+    public List<OrderSummaryDto> findDtos(Long lastOrderId, int limit) {
+        return em.createQuery(DTO_SELECT +
+                " where s.orderId > :lastOrderId" +
+                " order by s.orderId", OrderSummaryDto.class)
+                .setParameter("lastOrderId", lastOrderId == null ? 0L : lastOrderId)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
+    public Optional<OrderSummaryDto> findDto(Long orderId) {
+        return em.createQuery(DTO_SELECT + " where s.orderId = :orderId", OrderSummaryDto.class)
+                .setParameter("orderId", orderId)
+                .getResultStream()
+                .findFirst();
+    }
+
+    //== 읽기 모델 갱신 ==//
+
+    public void save(OrderSummary summary) {
+        em.persist(summary);
+    }
+
+    public void remove(OrderSummary summary) {
+        em.remove(summary);
+    }
+
+    public List<OrderSummary> findAllByOrderIds(Collection<Long> orderIds) {
+        return em.createQuery("select s from OrderSummary s where s.orderId in :orderIds", OrderSummary.class)
+                .setParameter("orderIds", orderIds)
+                .getResultList();
+    }
+
+    /**
+     * 읽기 모델을 다시 계산할 주문 (회원, 배송 함께 조회)
+     */
+    public List<Order> findOrders(Collection<Long> orderIds) {
+        return em.createQuery(
+                "select o from Order o" +
+                        " join fetch o.member m" +
+                        " join fetch o.delivery d" +
+                        " where o.id in :orderIds", Order.class)
+                .setParameter("orderIds", orderIds)
+                .getResultList();
+    }
+
+    /**
+     * 주문별 주문상품 (주문상품 id 순)
+     */
+    public Map<Long, List<OrderItemQueryDto>> findOrderItemMap(Collection<Long> orderIds) {
+        return em.createQuery(
+                "select new com.joonsang.example.dto.OrderItemQueryDto(oi.order.id, i.name, oi.orderPrice, oi.count)" +
+                        " from OrderItem oi" +
+                        " join oi.item i" +
+                        " where oi.order.id in :orderIds" +
+                        " order by oi.id", OrderItemQueryDto.class)
+                .setParameter("orderIds", orderIds)
+                .getResultStream()
+                .collect(groupingBy(OrderItemQueryDto::getOrderId));
+    }
+
+    public List<Long> findOrderIdsByDeliveryIds(Collection<Long> deliveryIds) {
+        return em.createQuery("select o.id from Order o where o.delivery.id in :deliveryIds", Long.class)
+                .setParameter("deliveryIds", deliveryIds)
+                .getResultList();
+    }
+
+    /**
+     * 전체 주문 id (Keyset, 읽기 모델 재생성)
+     */
+    public List<Long> findOrderIds(Long lastOrderId, int limit) {
+        return em.createQuery("select o.id from Order o where o.id > :lastOrderId order by o.id", Long.class)
+                .setParameter("lastOrderId", lastOrderId == null ? 0L : lastOrderId)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
+    /**
+     * 회원 이름 변경 반영
+     */
+    public int updateMemberName(Long memberId, String memberName) {
+        return em.createQuery("update OrderSummary s set s.memberName = :memberName where s.memberId = :memberId")
+                .setParameter("memberName", memberName)
+                .setParameter("memberId", memberId)
+                .executeUpdate();
+    }
+
+    /**
+     * 배송 상태 변경 반영
+     */
+    public int updateDeliveryStatus(Collection<Long> orderIds, DeliveryStatus deliveryStatus) {
+        return em.createQuery("update OrderSummary s set s.deliveryStatus = :deliveryStatus where s.orderId in :orderIds")
+                .setParameter("deliveryStatus", deliveryStatus)
+                .setParameter("orderIds", orderIds)
+                .executeUpdate();
+    }
+
+    public void flush() {
+        em.flush();
+    }
+
+    public void flushAndClear() {
+        em.flush();
+        em.clear();
+    }
+}
@@ -0,0 +1,51 @@
+package com.joonsang.example.repository;
+
+import com.joonsang.example.domain.StockLedgerEntry;
+import org.springframework.stereotype.Repository;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public class StockLedgerRepository {
+
+    @PersistenceContext
+    private EntityManager em;
+
+    public void save(StockLedgerEntry entry) {
+        em.persist(entry);
+    }
+
+    /**
+     * 반영하지 않은 재고 변경량 (오래된 순서로 limit 건)
+     */
+    public List<StockLedgerEntry> findPending(int limit) {
+        return em.createQuery("select e from StockLedgerEntry e order by e.id", StockLedgerEntry.class)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
+    /**
+     * 반영한 변경량 삭제 (조회한 id 만 지운다. 조회 이후 커밋 된 변경량은 다음 flush 에 반영)
+     */
+    public int delete(Collection<Long> entryIds) {
+        return em.createQuery("delete from StockLedgerEntry e where e.id in :entryIds")
+                .setParameter("entryIds", entryIds)
+                .executeUpdate();
+    }
+
+    /**
+     * 장부 기준 남은 재고 = DB 재고 - 반영하지 않은 변경량 합계 (SQL 1번으로 같은 시점의 값을 읽는다)
+     */
+    public Long findAvailableStock(Long itemId) {
+        List<?> result = em.createNativeQuery(
+                "select i.stock_quantity - coalesce((select sum(e.quantity) from stock_ledger_entry e where e.item_id = i.item_id), 0)" +
+                        " from item i" +
+                        " where i.item_id = :itemId")
+                .setParameter("itemId", itemId)
+                .getResultList();
+        return result.isEmpty() ? null : ((Number) result.get(0)).longValue();
+    }
+}
@@ -0,0 +1,304 @@
+package com.joonsang.example.service;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * 카테고리 트리 스냅샷 (불변, CategoryTreeService 가 만든다)
+ *
+ * - 카테고리를 전위 순회(부모 -> 자식, 형제는 id 순) 순서로 배열에 담는다.
+ *   하위 트리 전체가 [i, ends[i]) 연속 구간이므로, 하위 카테고리 / 하위 상품 조회는 배열 구간 복사 1번이다.
+ * - id -> 인덱스는 정렬된 id 배열에서 이진 탐색 (박싱 / HashMap X)
+ * - 상품은 카테고리 순서대로 이어 붙인다. (카테고리 i 의 상품 = itemIds[itemStarts[i], itemStarts[i + 1]) )
+ * - 만든 뒤에는 변경하지 않으므로 락 없이 여러 쓰레드에서 읽는다.
+ * - 없는 카테고리 id 는 빈 배열 / false
+ */
+public final class CategoryTree {
+
+    public static final CategoryTree EMPTY = build(Collections.emptyList(), Collections.emptyList());
+
+    private static final long[] NO_IDS = new long[0];
+
+    /** 카테고리 id (전위 순회 순서) */
+    private final long[] ids;
+    /** 부모 인덱스 (루트는 -1) */
+    private final int[] parents;
+    /** 하위 트리 끝 인덱스 (카테고리 i 의 하위 트리 = [i, ends[i]) ) */
+    private final int[] ends;
+
+    /** 정렬된 카테고리 id 와 그 인덱스 */
+    private final long[] sortedIds;
+    private final int[] sortedIndexes;
+
+    /** 카테고리별 상품 id */
+    private final int[] itemStarts;
+    private final long[] itemIds;
+
+    /** 상품별 카테고리 인덱스 (상품 id, 카테고리 인덱스 순으로 정렬) */
+    private final long[] linkItemIds;
+    private final int[] linkCategories;
+
+    private CategoryTree(long[] ids, int[] parents, int[] ends, long[] sortedIds, int[] sortedIndexes,
+                         int[] itemStarts, long[] itemIds, long[] linkItemIds, int[] linkCategories) {
+        this.ids = ids;
+        this.parents = parents;
+        this.ends = ends;
+        this.sortedIds = sortedIds;
+        this.sortedIndexes = sortedIndexes;
+        this.itemStarts = itemStarts;
+        this.itemIds = itemIds;
+        this.linkItemIds = linkItemIds;
+        this.linkCategories = linkCategories;
+    }
+
+    /**
+     * @param categories (카테고리 id, 부모 id 또는 null) - 부모가 목록에 없으면 루트로 본다.
+     * @param links      (카테고리 id, 상품 id) - 목록에 없는 카테고리는 무시한다.
+     */
+    static CategoryTree build(List<Object[]> categories, List<Object[]> links) {
+        int n = categories.size();
+
+        // 1. 정렬된 id -> 행 번호
+        long[] rowIds = new long[n];
+        for (int r = 0; r < n; r++) {
+            rowIds[r] = toLong(categories.get(r)[0]);
+        }
+        long[] sortedIds = rowIds.clone();
+        Arrays.sort(sortedIds);
+        int[] rowsBySorted = new int[n];
+        for (int r = 0; r < n; r++) {
+            rowsBySorted[Arrays.binarySearch(sortedIds, rowIds[r])] = r;
+        }
+
+        // 2. 행별 자식 목록 (id 순), 인덱스 n 은 루트 목록
+        int[] parentRows = new int[n];
+        int[] childStarts = new int[n + 3];
+        for (int r = 0; r < n; r++) {
+            Object parentId = categories.get(r)[1];
+            int parentPos = parentId == null ? -1 : Arrays.binarySearch(sortedIds, toLong(parentId));
+            parentRows[r] = parentPos < 0 ? n : rowsBySorted[parentPos];
+            childStarts[parentRows[r] + 2]++;
+        }
+        for (int i = 2; i < childStarts.length; i++) {
+            childStarts[i] += childStarts[i - 1];
+        }
+        int[] children = new int[n];
+        for (int pos = 0; pos < n; pos++) {
+            int r = rowsBySorted[pos];
+            children[childStarts[parentRows[r] + 1]++] = r;
+        }
+        // 이제 행 p 의 자식 = children[childStarts[p], childStarts[p + 1])
+
+        // 3. 전위 순회 (자식은 역순으로 쌓아서 id 순으로 꺼낸다)
+        long[] ids = new long[n];
+        int[] parents = new int[n];
+        int[] indexOfRow = new int[n];
+        int[] stack = new int[n];
+        int top = 0;
+        for (int c = childStarts[n + 1] - 1; c >= childStarts[n]; c--) {
+            stack[top++] = children[c];
+        }
+        int count = 0;
+        while (top > 0) {
+            int r = stack[--top];
+            indexOfRow[r] = count;
+            ids[count] = rowIds[r];
+            parents[count] = parentRows[r] == n ? -1 : indexOfRow[parentRows[r]];
+            count++;
+            for (int c = childStarts[r + 1] - 1; c >= childStarts[r]; c--) {
+                stack[top++] = children[c];
+            }
+        }
+        if (count < n) {
+            // 부모를 따라가면 다시 자신이 나오는 (순환) 카테고리는 루트에서 닿을 수 없다.
+            throw new IllegalStateException("카테고리 부모 관계에 순환이 있습니다. categories=" + n + ", reachable=" + count);
+        }
+
+        // 4. 하위 트리 크기 (전위 순회에서 부모는 항상 자식보다 앞에 있다)
+        int[] ends = new int[n];
+        Arrays.fill(ends, 1);
+        for (int i = n - 1; i > 0; i--) {
+            if (parents[i] >= 0) {
+                ends[parents[i]] += ends[i];
+            }
+        }
+        for (int i = 0; i < n; i++) {
+            ends[i] += i;
+        }
+
+        int[] sortedIndexes = new int[n];
+        for (int pos = 0; pos < n; pos++) {
+            sortedIndexes[pos] = indexOfRow[rowsBySorted[pos]];
+        }
+
+        // 5. 카테고리별 상품 / 상품별 카테고리
+        int[] linkCategories = new int[links.size()];
+        long[] linkItems = new long[links.size()];
+        int m = 0;
+        int[] itemStarts = new int[n + 1];
+        for (Object[] link : links) {
+            int pos = Arrays.binarySearch(sortedIds, toLong(link[0]));
+            if (pos < 0) {
+                continue;
+            }
+            linkCategories[m] = sortedIndexes[pos];
+            linkItems[m] = toLong(link[1]);
+            itemStarts[linkCategories[m] + 1]++;
+            m++;
+        }
+        for (int i = 1; i <= n; i++) {
+            itemStarts[i] += itemStarts[i - 1];
+        }
+        long[] itemIds = new long[m];
+        int[] fill = Arrays.copyOf(itemStarts, n);
+        for (int l = 0; l < m; l++) {
+            itemIds[fill[linkCategories[l]]++] = linkItems[l];
+        }
+        for (int i = 0; i < n; i++) {
+            Arrays.sort(itemIds, itemStarts[i], itemStarts[i + 1]);
+        }
+
+        Integer[] order = new Integer[m];
+        for (int l = 0; l < m; l++) {
+            order[l] = l;
+        }
+        Arrays.sort(order, Comparator.<Integer>comparingLong(l -> linkItems[l]).thenComparingInt(l -> linkCategories[l]));
+        long[] linkItemIds = new long[m];
+        int[] sortedLinkCategories = new int[m];
+        for (int l = 0; l < m; l++) {
+            linkItemIds[l] = linkItems[order[l]];
+            sortedLinkCategories[l] = linkCategories[order[l]];
+        }
+
+        return new CategoryTree(ids, parents, ends, sortedIds, sortedIndexes,
+                itemStarts, itemIds, linkItemIds, sortedLinkCategories);
+    }
+
+    /**
+     * 카테고리 수
+     */
+    public int size() {
+        return ids.length;
+    }
+
+    public boolean contains(long categoryId) {
+        return indexOf(categoryId) >= 0;
+    }
+
+    /**
+     * 자신 + 하위 카테고리 전체 (부모가 자식보다 먼저 나온다)
+     */
+    public long[] getSubtreeIds(long categoryId) {
+        int i = indexOf(categoryId);
+        return i < 0 ? NO_IDS : Arrays.copyOfRange(ids, i, ends[i]);
+    }
+
+    /**
+     * 바로 아래 자식 카테고리 (id 순)
+     */
+    public long[] getChildIds(long categoryId) {
+        int i = indexOf(categoryId);
+        if (i < 0) {
+            return NO_IDS;
+        }
+        int count = 0;
+        for (int c = i + 1; c < ends[i]; c = ends[c]) {
+            count++;
+        }
+        long[] result = new long[count];
+        count = 0;
+        for (int c = i + 1; c < ends[i]; c = ends[c]) {
+            result[count++] = ids[c];
+        }
+        return result;
+    }
+
+    /**
+     * 조상 카테고리 (루트 -> 부모 순, 루트 카테고리면 빈 배열)
+     */
+    public long[] getAncestorIds(long categoryId) {
+        int i = indexOf(categoryId);
+        if (i < 0) {
+            return NO_IDS;
+        }
+        int depth = 0;
+        for (int p = parents[i]; p >= 0; p = parents[p]) {
+            depth++;
+        }
+        long[] result = new long[depth];
+        for (int p = parents[i]; p >= 0; p = parents[p]) {
+            result[--depth] = ids[p];
+        }
+        return result;
+    }
+
+    /**
+     * categoryId 가 ancestorId 자신이거나 그 하위 카테고리인지
+     */
+    public boolean isInSubtree(long categoryId, long ancestorId) {
+        int i = indexOf(categoryId);
+        int a = indexOf(ancestorId);
+        return i >= 0 && a >= 0 && i >= a && i < ends[a];
+    }
+
+    /**
+     * 카테고리와 하위 카테고리 전체에 속한 상품 id (중복 제거, 정렬)
+     */
+    public long[] getItemIdsUnder(long categoryId) {
+        int i = indexOf(categoryId);
+        if (i < 0) {
+            return NO_IDS;
+        }
+        long[] result = Arrays.copyOfRange(itemIds, itemStarts[i], itemStarts[ends[i]]);
+        Arrays.sort(result);
+        int distinct = 0;
+        for (int k = 0; k < result.length; k++) {
+            if (k == 0 || result[k] != result[k - 1]) {
+                result[distinct++] = result[k];
+            }
+        }
+        return distinct == result.length ? result : Arrays.copyOf(result, distinct);
+    }
+
+    /**
+     * 상품이 카테고리나 그 하위 카테고리에 속해 있는지
+     */
+    public boolean isItemUnder(long itemId, long categoryId) {
+        int i = indexOf(categoryId);
+        if (i < 0) {
+            return false;
+        }
+        for (int l = lowerBound(linkItemIds, itemId); l < linkItemIds.length && linkItemIds[l] == itemId; l++) {
+            if (linkCategories[l] >= i && linkCategories[l] < ends[i]) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private int indexOf(long categoryId) {
+        int pos = Arrays.binarySearch(sortedIds, categoryId);
+        return pos < 0 ? -1 : sortedIndexes[pos];
+    }
+
+    private static int lowerBound(long[] sorted, long key) {
+        int low = 0;
+        int high = sorted.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (sorted[mid] < key) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    // 네이티브 쿼리 결과는 DB 에 따라 Long / BigInteger / Integer
+    private static long toLong(Object value) {
+        return ((Number) value).longValue();
+    }
+}
@@ -0,0 +1,205 @@
+package com.joonsang.example.service;
+
+import com.joonsang.example.domain.Category;
+import com.joonsang.example.repository.CategoryRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.AbstractCollectionEvent;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostCollectionRecreateEvent;
+import org.hibernate.event.spi.PostCollectionRecreateEventListener;
+import org.hibernate.event.spi.PostCollectionRemoveEvent;
+import org.hibernate.event.spi.PostCollectionRemoveEventListener;
+import org.hibernate.event.spi.PostCollectionUpdateEvent;
+import org.hibernate.event.spi.PostCollectionUpdateEventListener;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostDeleteEventListener;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostInsertEventListener;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.event.spi.PostUpdateEventListener;
+import org.hibernate.internal.SessionFactoryImpl;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.persistence.EntityManagerFactory;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 카테고리 트리 스냅샷 (CategoryTree) 관리
+ *
+ * - 카테고리 / category_item 전체를 쿼리 2번으로 읽어서 불변 스냅샷을 만들고 AtomicReference 로 교체한다.
+ *   조회는 current() 로 꺼낸 스냅샷만 보므로 락이 없고, 영속성 컨텍스트 / DB 를 거치지 않는다.
+ * - 카테고리 또는 카테고리의 상품 목록이 변경되면 커밋 후 별도 쓰레드에서 다시 만든다.
+ *   다시 만드는 동안에는 이전 스냅샷을 그대로 읽는다. (잠시 이전 데이터가 보일 수 있다)
+ * - 다시 만들기 요청이 몰리면 1번으로 합친다. (대기 중인 요청이 있으면 새로 예약하지 않는다)
+ *
+ * - 주의 : JPQL / native bulk UPDATE 는 이벤트가 발생하지 않으므로 requestRebuild 를 직접 호출한다.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class CategoryTreeService implements PostInsertEventListener, PostUpdateEventListener, PostDeleteEventListener,
+        PostCollectionRecreateEventListener, PostCollectionUpdateEventListener, PostCollectionRemoveEventListener {
+
+    private final EntityManagerFactory emf;
+    private final CategoryRepository categoryRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    private final AtomicReference<CategoryTree> tree = new AtomicReference<>();
+    private final AtomicBoolean rebuildScheduled = new AtomicBoolean();
+    private final ExecutorService rebuildExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "category-tree-rebuild");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @PostConstruct
+    public void registerListener() {
+        EventListenerRegistry registry = emf.unwrap(SessionFactoryImpl.class)
+                .getServiceRegistry()
+                .getService(EventListenerRegistry.class);
+        registry.appendListeners(EventType.POST_INSERT, this);
+        registry.appendListeners(EventType.POST_UPDATE, this);
+        registry.appendListeners(EventType.POST_DELETE, this);
+        registry.appendListeners(EventType.POST_COLLECTION_RECREATE, this);
+        registry.appendListeners(EventType.POST_COLLECTION_UPDATE, this);
+        registry.appendListeners(EventType.POST_COLLECTION_REMOVE, this);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        rebuildExecutor.shutdownNow();
+    }
+
+    /**
+     * 현재 스냅샷 (아직 만들지 않았으면 지금 만든다)
+     */
+    public CategoryTree current() {
+        CategoryTree current = tree.get();
+        return current != null ? current : rebuild();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildOnStartup() {
+        CategoryTree built = rebuild();
+        log.info("category tree built. categories={}", built.size());
+    }
+
+    /**
+     * 스냅샷을 지금 다시 만든다. (쿼리 2번)
+     *
+     * - 동시에 여러 번 호출되면 차례로 실행해서, 나중에 읽은 데이터가 항상 나중에 반영되도록 한다.
+     */
+    public synchronized CategoryTree rebuild() {
+        CategoryTree built = transactionTemplate.execute(status -> {
+            List<Object[]> categories = categoryRepository.findAllTreeRows();
+            List<Object[]> links = categoryRepository.findAllItemLinks();
+            return CategoryTree.build(categories, links);
+        });
+        tree.set(built);
+        return built;
+    }
+
+    /**
+     * 별도 쓰레드에서 다시 만든다. (이미 예약되어 있으면 무시)
+     */
+    public void requestRebuild() {
+        if (!rebuildScheduled.compareAndSet(false, true)) {
+            return;
+        }
+        rebuildExecutor.execute(() -> {
+            // 읽기 전에 풀어야, 읽는 도중 커밋된 변경이 다음 번에 반영된다.
+            rebuildScheduled.set(false);
+            try {
+                rebuild();
+            } catch (RuntimeException e) {
+                log.warn("Category tree rebuild failed. keeping previous snapshot", e);
+            }
+        });
+    }
+
+    /**
+     * 진행 중인 트랜잭션이 커밋되면 다시 만든다. (트랜잭션이 없으면 바로 요청)
+     */
+    public void rebuildAfterCommit() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            requestRebuild();
+            return;
+        }
+        // 트랜잭션마다 1번만 등록
+        if (TransactionSynchronizationManager.hasResource(this)) {
+            return;
+        }
+        TransactionSynchronizationManager.bindResource(this, Boolean.TRUE);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                requestRebuild();
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                TransactionSynchronizationManager.unbindResourceIfPossible(CategoryTreeService.this);
+            }
+        });
+    }
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        onChange(event.getEntity());
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        onChange(event.getEntity());
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        onChange(event.getEntity());
+    }
+
+    // Category.items 변경 = category_item 변경 (Category 엔티티 자체는 update 되지 않는다)
+    @Override
+    public void onPostRecreateCollection(PostCollectionRecreateEvent event) {
+        onCollectionChange(event);
+    }
+
+    @Override
+    public void onPostUpdateCollection(PostCollectionUpdateEvent event) {
+        onCollectionChange(event);
+    }
+
+    @Override
+    public void onPostRemoveCollection(PostCollectionRemoveEvent event) {
+        onCollectionChange(event);
+    }
+
+    private void onCollectionChange(AbstractCollectionEvent event) {
+        onChange(event.getAffectedOwnerOrNull());
+    }
+
+    private void onChange(Object entity) {
+        if (entity instanceof Category) {
+            rebuildAfterCommit();
+        }
+    }
+
+    @Override
+    public boolean requiresPostCommitHanding(EntityPersister persister) {
+        return false;
+    }
+}
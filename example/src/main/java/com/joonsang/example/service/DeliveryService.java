@@ -0,0 +1,105 @@
+package com.joonsang.example.service;
+
+import com.joonsang.example.domain.DeliveryStatus;
+import com.joonsang.example.dto.DeliveryStatusChangeResult;
+import com.joonsang.example.repository.DeliveryRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+@Slf4j
+@Service
+@Transactional(readOnly = true)
+@RequiredArgsConstructor
+public class DeliveryService {
+
+    private final DeliveryRepository deliveryRepository;
+    private final OrderSummaryService orderSummaryService;
+    private final OrderListCache orderListCache;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${delivery.bulk.chunk-size:1000}")
+    private int bulkChunkSize;
+
+    /**
+     * 배송 상태 일괄 변경 (창고 출고 처리)
+     *
+     * - delivery.bulk.chunk-size 개씩 끊어서 chunk 마다 트랜잭션 1개로 변경한다. (앞 chunk 는 먼저 커밋된다)
+     * - chunk 마다 배송 잠금 1번 + 변경 가능한 배송 조회 1번 + update delivery set status = ? where delivery_id in (...) 1번
+     *   (배송 엔티티를 조회해서 변경 감지로 1건씩 UPDATE 하지 않는다)
+     * - 상태 전이 규칙(DeliveryStatus.allowedFrom)에 맞지 않거나, 없는 배송 / 취소된 주문의 배송은 변경하지 않고 rejectedIds 로 돌려준다.
+     * - UPDATE 는 현재 상태를 다시 확인하므로 조회한 배송보다 적게 바뀔 수 있다.
+     *   UPDATE 후 실제로 바뀐 배송을 다시 조회해서, 바뀌지 않은 배송도 rejectedIds 로 돌려준다.
+     * - bulk UPDATE 는 엔티티 이벤트가 발생하지 않으므로 실제로 바뀐 배송의 주문 읽기 모델 / 주문 목록 캐시만 직접 갱신한다.
+     */
+    @Transactional(propagation = Propagation.NEVER)
+    public DeliveryStatusChangeResult changeStatus(Collection<Long> deliveryIds, DeliveryStatus status) {
+        long start = System.nanoTime();
+        List<Long> ids = new ArrayList<>(new LinkedHashSet<>(deliveryIds));
+        Set<DeliveryStatus> from = status.allowedFrom();
+
+        List<Long> rejectedIds = new ArrayList<>();
+        int changed = 0;
+        for (int i = 0; i < ids.size(); i += bulkChunkSize) {
+            List<Long> chunk = ids.subList(i, Math.min(i + bulkChunkSize, ids.size()));
+            if (from.isEmpty()) {
+                rejectedIds.addAll(chunk);
+                continue;
+            }
+            changed += transactionTemplate.execute(tx -> changeChunk(chunk, from, status, rejectedIds));
+        }
+
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        DeliveryStatusChangeResult result = new DeliveryStatusChangeResult(
+                status, ids.size(), changed, rejectedIds, elapsedMillis);
+        log.info("delivery status changed. status={}, requested={}, changed={}, rejected={}, elapsedMillis={}, perSecond={}",
+                status, result.getRequested(), changed, rejectedIds.size(), elapsedMillis, result.getChangedPerSecond());
+        return result;
+    }
+
+    private int changeChunk(List<Long> chunk, Set<DeliveryStatus> from, DeliveryStatus to, List<Long> rejectedIds) {
+        // 주문 취소와 동시에 처리되지 않도록 배송 row 를 먼저 잠근다.
+        deliveryRepository.lock(chunk);
+        Map<Long, Long> orderIds = new HashMap<>();     // 배송 id -> 주문 id
+        for (Object[] row : deliveryRepository.findChangeable(chunk, from)) {
+            orderIds.put((Long) row[0], (Long) row[1]);
+        }
+
+        // 조회 이후 다른 요청이 먼저 바꾼 배송은 UPDATE 에서 빠지므로, 바뀐 배송을 다시 조회한다.
+        Set<Long> changedIds = new HashSet<>();
+        if (!orderIds.isEmpty()) {
+            deliveryRepository.updateStatus(orderIds.keySet(), from, to);
+            changedIds.addAll(deliveryRepository.findIdsByStatus(orderIds.keySet(), to));
+        }
+
+        List<Long> changedOrderIds = new ArrayList<>();
+        for (Long deliveryId : chunk) {
+            if (changedIds.contains(deliveryId)) {
+                changedOrderIds.add(orderIds.get(deliveryId));
+            } else {
+                rejectedIds.add(deliveryId);
+            }
+        }
+        if (changedOrderIds.isEmpty()) {
+            return 0;
+        }
+
+        orderSummaryService.onDeliveryStatusChanged(changedOrderIds, to);
+        orderListCache.evictAfterCommit(changedOrderIds);
+        return changedOrderIds.size();
+    }
+}
@@ -0,0 +1,116 @@
+package com.joonsang.example.service;
+
+import com.joonsang.example.domain.item.Item;
+import com.joonsang.example.dto.ItemQueryDto;
+import com.joonsang.example.exception.NotEnoughStockException;
+import com.joonsang.example.repository.ItemRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+@Service
+@Transactional(readOnly = true)
+@RequiredArgsConstructor
+public class ItemService {
+
+    private final ItemRepository itemRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final StockLedger stockLedger;
+
+    @Value("${stock.retry.max-attempts:5}")
+    private int maxAttempts;
+
+    @Value("${stock.retry.backoff-ms:10}")
+    private long backoffMillis;
+
+    @Transactional
+    public void saveItem(Item item) {
+        itemRepository.save(item);
+    }
+
+    public List<Item> findItems() {
+        return itemRepository.findAll();
+    }
+
+    /**
+     * 상품 목록 + 카테고리 (Keyset 페이징, 쿼리 2번)
+     */
+    public List<ItemQueryDto> findItemPageWithCategories(Long lastItemId, int limit) {
+        return itemRepository.findItemPageWithCategories(lastItemId, limit);
+    }
+
+    public Item findOne(Long itemId) {
+        return itemRepository.findOne(itemId);
+    }
+
+    /**
+     * 재고 차감 (조건부 UPDATE)
+     *
+     * - 주문이 몰리는 상품에 사용한다. UPDATE 1번으로 재고 확인과 차감을 함께 처리한다.
+     * - 재고가 부족하면 Item.removeStock 과 같은 NotEnoughStockException 을 던진다. (없는 상품이면 IllegalArgumentException)
+     * - 주문(OrderService)도 이 메서드로 차감한다. (재고 차감 경로 1개)
+     * - 재고 예약 장부(stock.ledger.enabled)를 사용하면 DB 대신 장부에서 차감한다. (StockLedger.reserve)
+     */
+    @Transactional
+    public void removeStock(Long itemId, int quantity) {
+        if (stockLedger.isEnabled()) {
+            stockLedger.reserve(itemId, quantity);
+            return;
+        }
+        if (itemRepository.decreaseStock(itemId, quantity) == 0) {
+            if (itemRepository.findStockQuantity(itemId) == null) {
+                throw new IllegalArgumentException("존재하지 않는 상품입니다.");
+            }
+            throw new NotEnoughStockException("need more stock");
+        }
+    }
+
+    /**
+     * 재고 차감 (낙관적 락 + 재시도)
+     *
+     * - 엔티티를 조회해서 Item.removeStock 으로 차감하고, 커밋 시 @Version 으로 충돌을 검사한다.
+     * - 충돌하면 새 트랜잭션으로 다시 조회해서 재시도한다. (최대 stock.retry.max-attempts 번)
+     * - 재시도 간격은 stock.retry.backoff-ms 부터 2배씩 늘리고, 동시에 재시도하지 않도록 랜덤 값을 더한다.
+     * - 재고 부족(NotEnoughStockException)은 재시도하지 않는다.
+     *
+     * - 주의 : H2 1.4.200 (MVStore) 은 같은 row 에 version 조건 UPDATE 가 동시에 몰리면, 잠금을 기다린 UPDATE 가
+     *          조건을 다시 확인하지 않고 반영되어 갱신을 잃어버린다. (초과 판매)
+     *          H2 에서 주문이 몰리는 상품은 removeStock (조건부 UPDATE) 을 사용한다.
+     * - 재고 예약 장부를 사용하면 쓸 수 없다. (DB 재고를 직접 바꾸면 장부와 맞지 않는다, removeStock 을 사용한다)
+     */
+    @Transactional(propagation = Propagation.NEVER)
+    public void removeStockWithRetry(Long itemId, int quantity) {
+        if (stockLedger.isEnabled()) {
+            throw new IllegalStateException("재고 예약 장부를 사용하면 removeStock 으로 차감해야 합니다. (stock.ledger.enabled)");
+        }
+        for (int attempt = 1; ; attempt++) {
+            try {
+                transactionTemplate.executeWithoutResult(status ->
+                        itemRepository.findOne(itemId).removeStock(quantity));
+                return;
+            } catch (ConcurrencyFailureException e) {
+                if (attempt >= maxAttempts) {
+                    throw e;
+                }
+                backoff(attempt);
+            }
+        }
+    }
+
+    private void backoff(int attempt) {
+        long delay = backoffMillis << (attempt - 1);
+        try {
+            Thread.sleep(delay + ThreadLocalRandom.current().nextLong(delay + 1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+}
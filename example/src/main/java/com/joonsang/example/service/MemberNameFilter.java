@@ -0,0 +1,130 @@
+package com.joonsang.example.service;
+
+import com.joonsang.example.repository.MemberRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 회원 이름 Bloom filter (메모리)
+ *
+ * - 회원가입 중복 검사에서 "확실히 없는 이름" 이면 DB 조회를 건너뛴다.
+ * - mightContain 이 false 이면 없는 이름이다. true 이면 있을 수도 있으므로 DB 로 확인한다. (오탐 확률 member.name-filter.fpp)
+ * - 기동 시 DB 의 회원 이름으로 다시 만들고, 가입 / 이름 변경 시 추가한다. (삭제는 지원하지 않는다)
+ * - 다시 만들기 전에는 항상 DB 로 확인한다.
+ *
+ * - 주의 : 필터는 프로세스 메모리에 있으므로, 다른 인스턴스에서 가입한 이름은 모른다.
+ *          이 경우에도 uk_member_name 유니크 제약조건이 중복 가입을 막는다.
+ */
+@Slf4j
+@Component
+public class MemberNameFilter {
+
+    private final MemberRepository memberRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    private final AtomicLongArray words;
+    private final long bitSize;
+    private final int hashCount;
+
+    private volatile boolean ready;
+
+    public MemberNameFilter(MemberRepository memberRepository,
+                            TransactionTemplate transactionTemplate,
+                            @Value("${member.name-filter.expected-insertions:100000}") long expectedInsertions,
+                            @Value("${member.name-filter.fpp:0.01}") double fpp) {
+        this.memberRepository = memberRepository;
+        this.transactionTemplate = transactionTemplate;
+
+        // m = -n * ln(p) / (ln 2)^2 , k = m / n * ln 2
+        long bits = (long) Math.ceil(-expectedInsertions * Math.log(fpp) / (Math.log(2) * Math.log(2)));
+        int wordCount = (int) Math.max(1, (bits + 63) >>> 6);
+        this.words = new AtomicLongArray(wordCount);
+        this.bitSize = (long) wordCount << 6;
+        this.hashCount = Math.max(1, (int) Math.round((double) bitSize / expectedInsertions * Math.log(2)));
+    }
+
+    /**
+     * 기동 시 DB 의 회원 이름으로 필터를 채운다.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        long[] count = {0};
+        transactionTemplate.executeWithoutResult(status ->
+                memberRepository.forEachName(name -> {
+                    put(name);
+                    count[0]++;
+                }));
+        ready = true;
+        log.info("member name filter rebuilt. names={}, bits={}, hashes={}", count[0], bitSize, hashCount);
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * 있을 수도 있는 이름인지 (false 이면 확실히 없는 이름)
+     */
+    public boolean mightContain(String name) {
+        if (!ready || name == null) {
+            return true;
+        }
+        long hash = hash(name);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 1; i <= hashCount; i++) {
+            long bit = index(h1, h2, i);
+            if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public void put(String name) {
+        if (name == null) {
+            return;
+        }
+        long hash = hash(name);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 1; i <= hashCount; i++) {
+            long bit = index(h1, h2, i);
+            int word = (int) (bit >>> 6);
+            long mask = 1L << bit;
+            long current;
+            while (((current = words.get(word)) & mask) == 0) {
+                if (words.compareAndSet(word, current, current | mask)) {
+                    break;
+                }
+            }
+        }
+    }
+
+    // Kirsch-Mitzenmacher : 해시 2개로 k 개의 위치를 만든다.
+    private long index(int h1, int h2, int i) {
+        int combined = h1 + i * h2;
+        return (combined & 0x7fffffffL) % bitSize;
+    }
+
+    // 64-bit FNV-1a + murmur3 fmix64
+    private static long hash(String name) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < name.length(); i++) {
+            h ^= name.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
@@ -1,12 +1,26 @@
 package com.joonsang.example.service;
 
 import com.joonsang.example.domain.Member;
+import com.joonsang.example.dto.MemberJoinResult;
+import com.joonsang.example.dto.MemberQueryDto;
 import com.joonsang.example.repository.MemberRepository;
 import lombok.RequiredArgsConstructor;
+import org.hibernate.exception.ConstraintViolationException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.StringUtils;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Locale;
+import java.util.Set;
 
 @Service
 @Transactional(readOnly = true)
@@ -14,28 +28,166 @@ import java.util.List;
 public class MemberService {
 
     private final MemberRepository memberRepository;
+    private final MemberNameFilter memberNameFilter;
+    private final TransactionTemplate transactionTemplate;
+    private final OrderSummaryService orderSummaryService;
+    private final OrderListCache orderListCache;
+
+    @Value("${member.bulk.chunk-size:1000}")
+    private int bulkChunkSize;
 
     /**
      * 회원가입
+     *
+     * - 동시에 같은 이름으로 가입하면 둘 다 중복 검증을 통과할 수 있다.
+     *   이 경우 uk_member_name 유니크 제약조건 위반을 같은 예외로 바꿔서 던진다.
      */
     @Transactional //변경
     public Long join(Member member) {
         validateDuplicateMember(member); //중복 회원 검증
         memberRepository.save(member);
+        flushName();
+        memberNameFilter.put(member.getName());
         return member.getId();
     }
+
+    /**
+     * 중복 회원 검증
+     *
+     * - Bloom filter 에 없는 이름이면 DB 를 조회하지 않는다.
+     * - 있을 수도 있는 이름이면 엔티티 조회 없이 존재 여부만 확인한다.
+     */
     private void validateDuplicateMember(Member member) {
-        List<Member> findMembers = memberRepository.findByName(member.getName());
-        if (!findMembers.isEmpty()) {
+        if (!memberNameFilter.mightContain(member.getName())) {
+            return;
+        }
+        if (memberRepository.existsByName(member.getName())) {
             throw new IllegalStateException("이미 존재하는 회원입니다.");
         }
     }
 
+    /**
+     * 대량 회원가입
+     *
+     * - member.bulk.chunk-size 개씩 끊어서 chunk 마다 트랜잭션 1개로 가입한다. (앞 chunk 는 먼저 커밋된다)
+     * - 중복 검사는 chunk 마다 where name in (...) 1번, Bloom filter 에 없는 이름은 조회 대상에서 뺀다.
+     * - insert 는 JDBC batch 로 실행하고, chunk 마다 영속성 컨텍스트를 비운다.
+     * - 가입한 회원은 2차 캐시에 넣지 않는다. (처음 조회될 때 캐시된다)
+     * - 회원마다 결과(CREATED / DUPLICATE / INVALID)를 요청 순서대로 돌려준다.
+     * - 다른 요청과 동시에 같은 이름이 가입되거나 DB 제약 조건(컬럼 길이 등)에 걸려 chunk 가 롤백 되면,
+     *   그 chunk 만 1건씩 다시 가입해서 실패한 회원만 DUPLICATE / INVALID 로 돌려준다.
+     */
+    @Transactional(propagation = Propagation.NEVER)
+    public List<MemberJoinResult> joinAll(Iterator<Member> members) {
+        List<MemberJoinResult> results = new ArrayList<>();
+        List<Member> chunk = new ArrayList<>(bulkChunkSize);
+        while (members.hasNext()) {
+            chunk.add(members.next());
+            if (chunk.size() == bulkChunkSize) {
+                results.addAll(joinChunk(results.size(), chunk));
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            results.addAll(joinChunk(results.size(), chunk));
+        }
+        return results;
+    }
+
+    private List<MemberJoinResult> joinChunk(int offset, List<Member> chunk) {
+        try {
+            return transactionTemplate.execute(status -> insertChunk(offset, chunk));
+        } catch (DataIntegrityViolationException e) {
+            return joinOneByOne(offset, chunk);
+        }
+    }
+
+    private List<MemberJoinResult> insertChunk(int offset, List<Member> chunk) {
+        memberRepository.bypassCacheStore();
+        Set<String> candidates = new HashSet<>();
+        for (Member member : chunk) {
+            if (StringUtils.hasText(member.getName()) && memberNameFilter.mightContain(member.getName())) {
+                candidates.add(member.getName());
+            }
+        }
+        Set<String> existing = candidates.isEmpty()
+                ? Collections.emptySet()
+                : new HashSet<>(memberRepository.findNamesIn(candidates));
+
+        List<MemberJoinResult> results = new ArrayList<>(chunk.size());
+        Set<String> seen = new HashSet<>();
+        for (int i = 0; i < chunk.size(); i++) {
+            Member member = chunk.get(i);
+            String name = member.getName();
+            if (!StringUtils.hasText(name)) {
+                results.add(MemberJoinResult.invalid(offset + i, "회원 이름은 필수 입니다."));
+            } else if (existing.contains(name) || !seen.add(name)) {
+                results.add(MemberJoinResult.duplicate(offset + i));
+            } else {
+                memberRepository.save(member);
+                results.add(MemberJoinResult.created(offset + i, member.getId()));
+            }
+        }
+        memberRepository.flushAndClear();
+        seen.forEach(memberNameFilter::put);
+        return results;
+    }
+
+    private List<MemberJoinResult> joinOneByOne(int offset, List<Member> chunk) {
+        List<MemberJoinResult> results = new ArrayList<>(chunk.size());
+        for (int i = 0; i < chunk.size(); i++) {
+            // 롤백 된 chunk 에서 채번 된 id 를 버리고 새 엔티티로 가입한다.
+            Member member = new Member();
+            member.setName(chunk.get(i).getName());
+            member.setAddress(chunk.get(i).getAddress());
+            if (!StringUtils.hasText(member.getName())) {
+                results.add(MemberJoinResult.invalid(offset + i, "회원 이름은 필수 입니다."));
+                continue;
+            }
+            try {
+                results.add(MemberJoinResult.created(offset + i, transactionTemplate.execute(status -> join(member))));
+            } catch (IllegalStateException e) {
+                results.add(MemberJoinResult.duplicate(offset + i));
+            } catch (DataIntegrityViolationException e) {
+                results.add(MemberJoinResult.invalid(offset + i, "회원 정보를 저장할 수 없습니다."));
+            }
+        }
+        return results;
+    }
+
+    private void flushName() {
+        try {
+            memberRepository.flush();
+        } catch (DataIntegrityViolationException e) {
+            throw translateDuplicateName(e);
+        }
+    }
+
+    /**
+     * uk_member_name 위반이면 중복 회원 예외로 바꾼다. (컬럼 길이 등 다른 제약 조건 위반은 그대로 던진다)
+     */
+    private static RuntimeException translateDuplicateName(DataIntegrityViolationException e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof ConstraintViolationException) {
+                String constraintName = ((ConstraintViolationException) cause).getConstraintName();
+                if (constraintName != null && constraintName.toLowerCase(Locale.ROOT).contains("uk_member_name")) {
+                    return new IllegalStateException("이미 존재하는 회원입니다.", e);
+                }
+            }
+        }
+        return e;
+    }
+
     /** 전체 회원 조회 **/
     public List<Member> findMembers() {
         return memberRepository.findAll();
     }
 
+    /** 회원 목록 조회 (Keyset 페이징, DTO) **/
+    public List<MemberQueryDto> findMemberPage(Long lastMemberId, int limit) {
+        return memberRepository.findMemberDtos(lastMemberId, limit);
+    }
+
     /** 회원 상세 조회 **/
     public Member findOne(Long memberId) {
         return memberRepository.findOne(memberId);
@@ -46,5 +198,34 @@ public class MemberService {
     public void update(Long id, String name) {
         Member member = memberRepository.findOne(id);
         member.setName(name);
+        flushName();
+        memberNameFilter.put(name);
+        orderSummaryService.onMemberRenamed(id, name);
+    }
+
+    /**
+     * 회원 이름 변경 (UPDATE 1번)
+     *
+     * - update 와 달리 회원을 조회하지 않는다. (조회 2번 + UPDATE 1번 -> UPDATE 1번)
+     * - 변경 된 row 수로 회원 존재 여부를 판단한다.
+     *
+     * @return 변경 된 회원이 없으면 false
+     */
+    @Transactional
+    public boolean updateName(Long id, String name) {
+        int updated;
+        try {
+            updated = memberRepository.updateName(id, name);
+        } catch (DataIntegrityViolationException e) {
+            throw translateDuplicateName(e);
+        }
+        if (updated == 0) {
+            return false;
+        }
+        memberNameFilter.put(name);
+        orderSummaryService.onMemberRenamed(id, name);
+        // native UPDATE 는 엔티티 이벤트가 발생하지 않는다.
+        orderListCache.evictAfterCommit();
+        return true;
     }
 }
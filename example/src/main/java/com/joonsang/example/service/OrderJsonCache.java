@@ -0,0 +1,132 @@
+package com.joonsang.example.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.joonsang.example.dto.OrderQueryDto;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 주문(OrderQueryDto) 별 JSON 바이트 캐시 (V4 / V5 응답)
+ *
+ * - 주문 1건을 UTF-8 JSON 으로 한번만 직렬화해 두고, 응답은 캐시 된 바이트를 이어 붙여서 만든다. ( [ + 주문 + , + 주문 + ] )
+ * - 변경이 없으면 요청마다 Jackson 이 OrderQueryDto / OrderItemQueryDto / Address 를 다시 직렬화하지 않는다.
+ * - 주문 / 주문상품 / 배송이 변경되면 그 주문만, 회원이 변경되면 전부 커밋 후 비운다. (OrderListCache)
+ * - 크기 제한은 바이트 단위 (order.json-cache.max-bytes)
+ *
+ * - 버전 : 무효화 할 때마다 1 증가한다. 조회 시작 전에 읽은 버전이 그 사이 바뀌었으면 캐시에 넣지 않는다.
+ *          (커밋 전에 읽은 이전 데이터로 캐시를 다시 채우는 것을 막는다)
+ * - V5 는 주문 목록 캐시(OrderListCache.ORDERS_CACHE)의 목록으로 채운다.
+ *   목록 캐시도 같은 방식으로 이전 목록을 넣지 않고, 커밋 후에는 목록 캐시를 먼저 비운 뒤 이 캐시를 비운다.
+ *   (반대 순서면 새 버전을 읽은 요청이 아직 남은 이전 목록으로 바이트를 채울 수 있다)
+ */
+@Component
+public class OrderJsonCache implements MeterBinder {
+
+    private static final byte[] EMPTY_ARRAY = {'[', ']'};
+
+    private final ObjectMapper objectMapper;
+    private final Cache<Long, byte[]> cache;
+    private final AtomicLong version = new AtomicLong();
+
+    public OrderJsonCache(ObjectMapper objectMapper,
+                          @Value("${order.json-cache.max-bytes:67108864}") long maxBytes,
+                          @Value("${order.json-cache.expire-minutes:10}") long expireMinutes) {
+        this.objectMapper = objectMapper;
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(maxBytes)
+                .<Long, byte[]>weigher((orderId, json) -> json.length)
+                .expireAfterWrite(expireMinutes, TimeUnit.MINUTES)
+                .recordStats()
+                .build();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, cache, "orderJson");
+    }
+
+    /**
+     * 현재 무효화 버전 (주문 목록을 조회하기 전에 읽는다)
+     */
+    public long version() {
+        return version.get();
+    }
+
+    /**
+     * 주문 목록을 JSON 배열로 (캐시 된 주문은 직렬화 X)
+     *
+     * @param version 주문 목록을 조회하기 전에 읽은 version()
+     */
+    public byte[] writeArray(List<OrderQueryDto> orders, long version) {
+        if (orders.isEmpty()) {
+            return EMPTY_ARRAY;
+        }
+
+        byte[][] jsons = new byte[orders.size()][];
+        int length = 1 + orders.size();     // '[' + ',' * (n - 1) + ']'
+        for (int i = 0; i < jsons.length; i++) {
+            jsons[i] = get(orders.get(i), version);
+            length += jsons[i].length;
+        }
+
+        byte[] result = new byte[length];
+        int pos = 0;
+        result[pos++] = '[';
+        for (int i = 0; i < jsons.length; i++) {
+            if (i > 0) {
+                result[pos++] = ',';
+            }
+            System.arraycopy(jsons[i], 0, result, pos, jsons[i].length);
+            pos += jsons[i].length;
+        }
+        result[pos] = ']';
+        return result;
+    }
+
+    private byte[] get(OrderQueryDto order, long version) {
+        Long orderId = order.getOrderId();
+        byte[] json = cache.getIfPresent(orderId);
+        if (json != null) {
+            return json;
+        }
+
+        json = serialize(order);
+        if (this.version.get() == version) {
+            cache.put(orderId, json);
+            // put 하는 사이에 무효화 되었으면 다시 지운다.
+            if (this.version.get() != version) {
+                cache.invalidate(orderId);
+            }
+        }
+        return json;
+    }
+
+    private byte[] serialize(OrderQueryDto order) {
+        try {
+            return objectMapper.writeValueAsBytes(order);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("주문을 JSON 으로 만들 수 없습니다. orderId=" + order.getOrderId(), e);
+        }
+    }
+
+    public void evict(Collection<Long> orderIds) {
+        version.incrementAndGet();
+        cache.invalidateAll(orderIds);
+    }
+
+    public void evictAll() {
+        version.incrementAndGet();
+        cache.invalidateAll();
+    }
+}
@@ -0,0 +1,241 @@
+package com.joonsang.example.service;
+
+import com.joonsang.example.domain.Delivery;
+import com.joonsang.example.domain.Member;
+import com.joonsang.example.domain.Order;
+import com.joonsang.example.domain.OrderItem;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostDeleteEventListener;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostInsertEventListener;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.event.spi.PostUpdateEventListener;
+import org.hibernate.internal.SessionFactoryImpl;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.interceptor.SimpleKey;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.annotation.PostConstruct;
+import javax.persistence.EntityManagerFactory;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+
+import static java.util.stream.Collectors.collectingAndThen;
+import static java.util.stream.Collectors.toList;
+
+/**
+ * 주문 목록 캐시 (V4 / V5 / V6) 와 주문 JSON 캐시(OrderJsonCache) 무효화
+ *
+ * - 목록 캐시는 주문 전체를 담고 있으므로, 주문 / 주문상품 / 배송 / 회원 중 하나라도 변경되면 전부 비운다.
+ * - 주문 JSON 캐시는 변경 된 주문만 비운다. (회원이 변경되면 전부)
+ * - 커밋 이후(afterCommit)에 비운다. 롤백 되면 비우지 않는다.
+ * - 커밋 후에 비워도, 커밋 전에 조회를 시작한 요청이 비운 뒤에 이전 목록을 캐시에 넣을 수 있다.
+ *   그래서 목록은 get 으로만 캐시하고, 비울 때마다 버전을 올려서 조회하는 사이 버전이 바뀐 목록은 넣지 않는다.
+ * - 캐시 된 목록은 여러 요청이 함께 쓰므로, 요청마다 DTO 를 복사한 변경 불가 리스트를 돌려준다.
+ *
+ * - 주의 : JPQL / native bulk UPDATE 는 이벤트가 발생하지 않으므로 evictAfterCommit 을 직접 호출한다.
+ */
+@Component
+@RequiredArgsConstructor
+public class OrderListCache implements PostInsertEventListener, PostUpdateEventListener, PostDeleteEventListener {
+
+    /** 주문 목록 캐시 (Caffeine, spring.cache.cache-names) */
+    public static final String SIMPLE_ORDERS_CACHE = "simpleOrders";
+    public static final String ORDERS_CACHE = "orders";
+    public static final String ORDER_FLATS_CACHE = "orderFlats";
+
+    private static final String[] CACHE_NAMES = {SIMPLE_ORDERS_CACHE, ORDERS_CACHE, ORDER_FLATS_CACHE};
+
+    private final EntityManagerFactory emf;
+    private final CacheManager cacheManager;
+    private final OrderJsonCache orderJsonCache;
+
+    /** 목록 캐시를 비울 때마다 1 증가 */
+    private final AtomicLong version = new AtomicLong();
+
+    @PostConstruct
+    public void registerListener() {
+        EventListenerRegistry registry = emf.unwrap(SessionFactoryImpl.class)
+                .getServiceRegistry()
+                .getService(EventListenerRegistry.class);
+        registry.appendListeners(EventType.POST_INSERT, this);
+        registry.appendListeners(EventType.POST_UPDATE, this);
+        registry.appendListeners(EventType.POST_DELETE, this);
+    }
+
+    /**
+     * 캐시 된 주문 목록 (없으면 loader 로 조회해서 캐시한다)
+     *
+     * - 조회하는 동안 목록 캐시가 비워졌으면(버전이 바뀌었으면) 캐시에 넣지 않는다.
+     * - 캐시에는 변경 불가 리스트를 넣고, 돌려줄 때는 copier 로 DTO 를 복사한 변경 불가 리스트를 만든다.
+     */
+    public <T> List<T> get(String cacheName, Supplier<List<T>> loader, UnaryOperator<T> copier) {
+        Cache cache = cacheManager.getCache(cacheName);
+        if (cache == null) {
+            throw new IllegalArgumentException("등록되지 않은 캐시입니다. cacheName=" + cacheName);
+        }
+
+        @SuppressWarnings("unchecked")
+        List<T> cached = cache.get(SimpleKey.EMPTY, List.class);
+        if (cached == null) {
+            long version = this.version.get();
+            cached = Collections.unmodifiableList(new ArrayList<>(loader.get()));
+            if (this.version.get() == version) {
+                cache.put(SimpleKey.EMPTY, cached);
+                // put 하는 사이에 비워졌으면 다시 지운다.
+                if (this.version.get() != version) {
+                    cache.evict(SimpleKey.EMPTY);
+                }
+            }
+        }
+        return cached.stream()
+                .map(copier)
+                .collect(collectingAndThen(toList(), Collections::unmodifiableList));
+    }
+
+    public void evictAll() {
+        evictLists();
+        orderJsonCache.evictAll();
+    }
+
+    /**
+     * 진행 중인 트랜잭션이 커밋되면 전부 비운다. (트랜잭션이 없으면 바로 비운다)
+     */
+    public void evictAfterCommit() {
+        PendingEviction pending = pendingEviction();
+        if (pending == null) {
+            evictAll();
+            return;
+        }
+        pending.all = true;
+    }
+
+    /**
+     * 진행 중인 트랜잭션이 커밋되면 목록 캐시와 주문 1건의 JSON 캐시를 비운다.
+     */
+    public void evictAfterCommit(Long orderId) {
+        PendingEviction pending = pendingEviction();
+        if (pending == null) {
+            evictLists();
+            orderJsonCache.evict(Collections.singleton(orderId));
+            return;
+        }
+        pending.orderIds.add(orderId);
+    }
+
+    /**
+     * 진행 중인 트랜잭션이 커밋되면 목록 캐시와 주문들의 JSON 캐시를 비운다. (bulk UPDATE 용)
+     */
+    public void evictAfterCommit(Collection<Long> orderIds) {
+        PendingEviction pending = pendingEviction();
+        if (pending == null) {
+            evictLists();
+            orderJsonCache.evict(orderIds);
+            return;
+        }
+        pending.orderIds.addAll(orderIds);
+    }
+
+    private void evictLists() {
+        version.incrementAndGet();
+        for (String cacheName : CACHE_NAMES) {
+            Cache cache = cacheManager.getCache(cacheName);
+            if (cache != null) {
+                cache.clear();
+            }
+        }
+    }
+
+    // 트랜잭션마다 1번만 등록
+    private PendingEviction pendingEviction() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return null;
+        }
+        PendingEviction pending = (PendingEviction) TransactionSynchronizationManager.getResource(this);
+        if (pending == null) {
+            pending = new PendingEviction();
+            TransactionSynchronizationManager.bindResource(this, pending);
+            TransactionSynchronizationManager.registerSynchronization(pending);
+        }
+        return pending;
+    }
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        onChange(event.getEntity());
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        onChange(event.getEntity());
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        onChange(event.getEntity());
+    }
+
+    private void onChange(Object entity) {
+        if (entity instanceof Order) {
+            evictAfterCommit(((Order) entity).getId());
+        } else if (entity instanceof OrderItem) {
+            evictAfterCommit(((OrderItem) entity).getOrder());
+        } else if (entity instanceof Delivery) {
+            evictAfterCommit(((Delivery) entity).getOrder());
+        } else if (entity instanceof Member) {
+            evictAfterCommit();
+        }
+    }
+
+    private void evictAfterCommit(Order order) {
+        if (order == null) {
+            evictAfterCommit();
+        } else {
+            evictAfterCommit(order.getId());
+        }
+    }
+
+    @Override
+    public boolean requiresPostCommitHanding(EntityPersister persister) {
+        return false;
+    }
+
+    /**
+     * 트랜잭션 하나에서 변경 된 주문 id (all 이면 전부)
+     */
+    private class PendingEviction implements TransactionSynchronization {
+
+        final Set<Long> orderIds = new HashSet<>();
+        boolean all;
+
+        // 목록 캐시를 먼저 비운다. (OrderJsonCache 는 목록 캐시의 목록으로 채운다)
+        @Override
+        public void afterCommit() {
+            if (all) {
+                evictAll();
+            } else {
+                evictLists();
+                orderJsonCache.evict(orderIds);
+            }
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            TransactionSynchronizationManager.unbindResourceIfPossible(OrderListCache.this);
+        }
+    }
+}
@@ -0,0 +1,201 @@
+package com.joonsang.example.service;
+
+import com.joonsang.example.domain.Delivery;
+import com.joonsang.example.domain.DeliveryStatus;
+import com.joonsang.example.domain.Member;
+import com.joonsang.example.domain.Order;
+import com.joonsang.example.domain.OrderItem;
+import com.joonsang.example.domain.item.Item;
+import com.joonsang.example.dto.OrderCancelResult;
+import com.joonsang.example.dto.OrderLineDto;
+import com.joonsang.example.dto.OrderQueryDto;
+import com.joonsang.example.repository.ItemRepository;
+import com.joonsang.example.repository.MemberRepository;
+import com.joonsang.example.repository.OrderRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+
+@Service
+@Transactional(readOnly = true)
+@RequiredArgsConstructor
+public class OrderService {
+
+    private final OrderRepository orderRepository;
+    private final MemberRepository memberRepository;
+    private final ItemRepository itemRepository;
+    private final StockLedger stockLedger;
+    private final ItemService itemService;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:100}")
+    private int batchSize;
+
+    @Value("${order.cancel.chunk-size:1000}")
+    private int cancelChunkSize;
+
+    /**
+     * 주문
+     */
+    @Transactional
+    public Long order(Long memberId, Long itemId, int count) {
+        Order order = createOrder(memberRepository.findOne(memberId), itemRepository.findOne(itemId), count);
+        reserveStock(itemId, count);
+        orderRepository.save(order);
+        return order.getId();
+    }
+
+    /**
+     * 대량 주문
+     *
+     * - 하나의 트랜잭션에서 여러 주문을 저장한다.
+     * - ID 는 시퀀스에서 미리 할당 받은 값을 사용하므로 insert 를 hibernate.jdbc.batch_size 만큼 모아서 보낸다.
+     *   (order_inserts 로 같은 테이블의 insert 끼리 정렬해야 batch 가 끊기지 않는다)
+     * - batch_size 마다 flush + clear 해서 영속성 컨텍스트가 계속 커지지 않도록 한다.
+     * - 재고는 상품별 수량 합계를 먼저 상품 id 순으로 차감한다. (상품마다 UPDATE 1번, 동시 주문 / 취소와 교착 상태 X)
+     * - 하나라도 실패(재고 부족 등)하면 전체가 롤백된다.
+     */
+    @Transactional
+    public List<Long> orders(List<OrderLineDto> lines) {
+        Map<Long, Integer> quantities = new TreeMap<>();
+        lines.forEach(line -> quantities.merge(line.getItemId(), line.getCount(), Integer::sum));
+        quantities.forEach(this::reserveStock);
+
+        List<Long> orderIds = new ArrayList<>(lines.size());
+        Map<Long, Member> members = new HashMap<>();
+        Map<Long, Item> items = new HashMap<>();
+
+        for (OrderLineDto line : lines) {
+            Member member = members.computeIfAbsent(line.getMemberId(), memberRepository::findOne);
+            Item item = items.computeIfAbsent(line.getItemId(), itemRepository::findOne);
+
+            Order order = createOrder(member, item, line.getCount());
+            orderRepository.save(order);
+            orderIds.add(order.getId());
+
+            if (orderIds.size() % batchSize == 0) {
+                orderRepository.flushAndClear();
+                members.clear();
+                items.clear();
+            }
+        }
+        return orderIds;
+    }
+
+    /**
+     * 주문 취소
+     *
+     * - 배송 row 를 잠그고 주문을 조회한 뒤 Order.cancel 로 취소한다. (배송완료 / 이미 취소된 주문이면 IllegalStateException)
+     * - 재고는 주문상품을 상품별로 합쳐서 UPDATE 1번씩 복구한다. (cancelOrders 와 같다)
+     */
+    @Transactional
+    public void cancelOrder(Long orderId) {
+        List<Order> orders = orderRepository.findAllForCancel(Collections.singletonList(orderId));
+        if (orders.isEmpty()) {
+            throw new IllegalArgumentException("존재하지 않는 주문입니다.");
+        }
+        orders.get(0).cancel();
+        restoreStock(Collections.singletonList(orderId));
+    }
+
+    /**
+     * 대량 주문 취소
+     *
+     * - order.cancel.chunk-size 개씩 끊어서 chunk 마다 트랜잭션 1개로 취소한다. (앞 chunk 는 먼저 커밋된다)
+     *   주문이 많아도 배송 row 잠금 / 영속성 컨텍스트 / 되돌릴 변경이 chunk 크기를 넘지 않는다.
+     * - chunk 마다 배송 row 잠금 + 주문 조회 후 Order.cancel 로 취소한다.
+     * - 취소할 수 없는 주문(없는 주문 / 배송완료 / 이미 취소)은 실패시키지 않고 rejectedIds 로 돌려준다.
+     * - 재고는 chunk 에서 취소한 주문의 주문상품을 상품별로 합쳐서, 상품마다 UPDATE 1번으로 복구한다.
+     *   (주문상품마다 Item 엔티티를 조회해서 addStock 하지 않는다)
+     * - 주문 상태는 엔티티로 변경하므로 주문 읽기 모델 / 주문 목록 캐시는 리스너가 갱신한다.
+     */
+    @Transactional(propagation = Propagation.NEVER)
+    public OrderCancelResult cancelOrders(Collection<Long> orderIds) {
+        List<Long> ids = new ArrayList<>(new LinkedHashSet<>(orderIds));
+        List<Long> cancelledIds = new ArrayList<>(ids.size());
+        List<Long> rejectedIds = new ArrayList<>();
+        Map<Long, Long> restoredStock = new TreeMap<>();
+
+        for (int from = 0; from < ids.size(); from += cancelChunkSize) {
+            List<Long> chunk = ids.subList(from, Math.min(from + cancelChunkSize, ids.size()));
+            transactionTemplate.execute(status -> cancelChunk(chunk, cancelledIds, rejectedIds))
+                    .forEach((itemId, quantity) -> restoredStock.merge(itemId, quantity, Long::sum));
+        }
+        return new OrderCancelResult(ids.size(), cancelledIds.size(), rejectedIds, restoredStock);
+    }
+
+    private Map<Long, Long> cancelChunk(List<Long> chunk, List<Long> cancelledIds, List<Long> rejectedIds) {
+        Map<Long, Order> orders = new HashMap<>();
+        orderRepository.findAllForCancel(chunk).forEach(o -> orders.put(o.getId(), o));
+        List<Long> cancelled = new ArrayList<>(chunk.size());
+        for (Long orderId : chunk) {
+            Order order = orders.get(orderId);
+            if (order != null && order.isCancelable()) {
+                order.cancel();
+                cancelled.add(orderId);
+            } else {
+                rejectedIds.add(orderId);
+            }
+        }
+        orderRepository.flushAndClear();
+        cancelledIds.addAll(cancelled);
+        return restoreStock(cancelled);
+    }
+
+    // 상품별 주문 수량 합계만큼 재고 복구
+    private Map<Long, Long> restoreStock(List<Long> orderIds) {
+        Map<Long, Long> quantities = new TreeMap<>();
+        if (!orderIds.isEmpty()) {
+            orderRepository.findOrderedQuantities(orderIds).forEach((itemId, quantity) -> quantities.merge(itemId, quantity, Long::sum));
+        }
+        stockLedger.releaseAll(quantities);
+        return quantities;
+    }
+
+    // 재고 차감 (장부 / 조건부 UPDATE 는 ItemService.removeStock 한 곳에서 처리한다)
+    private void reserveStock(Long itemId, int quantity) {
+        itemService.removeStock(itemId, quantity);
+    }
+
+    private Order createOrder(Member member, Item item, int count) {
+        if (member == null) {
+            throw new IllegalArgumentException("존재하지 않는 회원입니다.");
+        }
+        if (item == null) {
+            throw new IllegalArgumentException("존재하지 않는 상품입니다.");
+        }
+
+        // 배송정보 생성
+        Delivery delivery = new Delivery();
+        delivery.setAddress(member.getAddress());
+        delivery.setStatus(DeliveryStatus.READY);
+
+        // 주문상품 생성 (재고는 reserveStock 으로 따로 차감한다)
+        OrderItem orderItem = OrderItem.createReservedOrderItem(item, item.getPrice(), count);
+
+        // 주문 생성
+        return Order.createOrder(member, delivery, orderItem);
+    }
+
+    /**
+     * 주문 전체 내보내기
+     *
+     * - 커서가 열려 있는 동안 트랜잭션을 유지해야 하므로, 스트리밍 응답 쓰레드에서 이 메서드를 호출한다.
+     */
+    public void exportOrders(Consumer<OrderQueryDto> action) {
+        orderRepository.scrollAllByDto(action);
+    }
+}
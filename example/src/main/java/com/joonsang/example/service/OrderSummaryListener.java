@@ -0,0 +1,127 @@
+package com.joonsang.example.service;
+
+import com.joonsang.example.domain.Delivery;
+import com.joonsang.example.domain.Order;
+import com.joonsang.example.domain.OrderItem;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.action.spi.AfterTransactionCompletionProcess;
+import org.hibernate.action.spi.BeforeTransactionCompletionProcess;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventSource;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostDeleteEventListener;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostInsertEventListener;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.event.spi.PostUpdateEventListener;
+import org.hibernate.internal.SessionFactoryImpl;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.annotation.PostConstruct;
+import javax.persistence.EntityManagerFactory;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * 주문 읽기 모델(order_summary) 변경 감지 리스너
+ *
+ * - 변경 된 주문 / 배송 id 를 트랜잭션(스레드에 바인딩)마다 모아 두고, 커밋 직전에 읽기 모델을 다시 계산한다.
+ * - Spring 의 beforeCommit 은 커밋 시점 flush 보다 먼저 실행되어 그때 발생한 이벤트를 놓친다.
+ *   Hibernate 의 BeforeTransactionCompletionProcess 는 커밋 시점 flush 이후에 실행된다.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class OrderSummaryListener implements PostInsertEventListener, PostUpdateEventListener, PostDeleteEventListener {
+
+    private final EntityManagerFactory emf;
+    private final OrderSummaryService orderSummaryService;
+
+    /**
+     * 리스너 등록 (OrderListCache / CategoryTreeService 와 같은 방식)
+     *
+     * - 기동 중(InitDb)에 저장 된 주문도 놓치지 않도록 InitDb 는 이 빈 다음에 만든다. (@DependsOn)
+     */
+    @PostConstruct
+    public void registerListener() {
+        EventListenerRegistry registry = emf.unwrap(SessionFactoryImpl.class)
+                .getServiceRegistry()
+                .getService(EventListenerRegistry.class);
+        registry.appendListeners(EventType.POST_INSERT, this);
+        registry.appendListeners(EventType.POST_UPDATE, this);
+        registry.appendListeners(EventType.POST_DELETE, this);
+    }
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        onChange(event.getSession(), event.getEntity());
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        onChange(event.getSession(), event.getEntity());
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        onChange(event.getSession(), event.getEntity());
+    }
+
+    private void onChange(EventSource session, Object entity) {
+        if (entity instanceof Order) {
+            pendingChanges(session, entity).orderIds.add(((Order) entity).getId());
+        } else if (entity instanceof OrderItem) {
+            Order order = ((OrderItem) entity).getOrder();
+            if (order != null) {
+                pendingChanges(session, entity).orderIds.add(order.getId());
+            }
+        } else if (entity instanceof Delivery) {
+            pendingChanges(session, entity).deliveryIds.add(((Delivery) entity).getId());
+        }
+    }
+
+    private PendingChanges pendingChanges(EventSource session, Object entity) {
+        if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+            log.warn("{} changed outside of a Spring transaction. order_summary is not refreshed.", entity.getClass().getSimpleName());
+            return new PendingChanges();
+        }
+        PendingChanges pending = (PendingChanges) TransactionSynchronizationManager.getResource(this);
+        if (pending == null) {
+            pending = new PendingChanges();
+            TransactionSynchronizationManager.bindResource(this, pending);
+            session.getActionQueue().registerProcess((BeforeTransactionCompletionProcess) pending);
+            session.getActionQueue().registerProcess((AfterTransactionCompletionProcess) pending);
+        }
+        return pending;
+    }
+
+    @Override
+    public boolean requiresPostCommitHanding(EntityPersister persister) {
+        return false;
+    }
+
+    /**
+     * 트랜잭션 하나에서 변경 된 주문 / 배송 id
+     */
+    private class PendingChanges implements BeforeTransactionCompletionProcess, AfterTransactionCompletionProcess {
+
+        final Set<Long> orderIds = new LinkedHashSet<>();
+        final Set<Long> deliveryIds = new LinkedHashSet<>();
+
+        @Override
+        public void doBeforeTransactionCompletion(SessionImplementor session) {
+            orderSummaryService.refreshChanges(orderIds, deliveryIds);
+        }
+
+        @Override
+        public void doAfterTransactionCompletion(boolean success, SharedSessionContractImplementor session) {
+            TransactionSynchronizationManager.unbindResourceIfPossible(OrderSummaryListener.this);
+        }
+    }
+}
@@ -0,0 +1,189 @@
+package com.joonsang.example.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.joonsang.example.domain.DeliveryStatus;
+import com.joonsang.example.domain.Order;
+import com.joonsang.example.domain.OrderSummary;
+import com.joonsang.example.dto.OrderItemQueryDto;
+import com.joonsang.example.dto.OrderSummaryDto;
+import com.joonsang.example.repository.OrderSummaryRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+
+import static java.util.stream.Collectors.toMap;
+
+/**
+ * 주문 읽기 모델 (order_summary) 관리
+ *
+ * - Order / OrderItem / Delivery 가 insert / update / delete 되면 Hibernate 이벤트 리스너(OrderSummaryListener)가
+ *   주문 / 배송 id 를 모아 둔다.
+ * - 같은 트랜잭션의 커밋 직전(커밋 flush 이후)에 모아 둔 주문의 order_summary 를 다시 계산한다.
+ *   (주문 변경과 읽기 모델 변경이 함께 커밋 / 롤백 된다)
+ * - 회원 이름 변경은 onMemberRenamed 로 반영한다.
+ * - order.summary.rebuild-on-startup = true 이면 기동 시 전체 주문으로 다시 만든다. (기존 데이터 이관)
+ *
+ * - 주의 : JPQL / native bulk UPDATE 로 주문을 변경하면 이벤트가 발생하지 않는다. 이 경우 refresh 를 직접 호출한다.
+ */
+@Slf4j
+@Service
+@Transactional(readOnly = true)
+@RequiredArgsConstructor
+public class OrderSummaryService {
+
+    private final OrderSummaryRepository orderSummaryRepository;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${order.summary.chunk-size:1000}")
+    private int chunkSize;
+
+    @Value("${order.summary.rebuild-on-startup:false}")
+    private boolean rebuildOnStartup;
+
+    /**
+     * 주문 목록 (order_summary, Keyset 페이징)
+     */
+    public List<OrderSummaryDto> findSummaries(Long lastOrderId, int limit) {
+        return orderSummaryRepository.findDtos(lastOrderId, limit);
+    }
+
+    public Optional<OrderSummaryDto> findSummary(Long orderId) {
+        return orderSummaryRepository.findDto(orderId);
+    }
+
+    /**
+     * 회원 이름 변경 반영 (회원 트랜잭션 안에서 호출)
+     */
+    @Transactional
+    public void onMemberRenamed(Long memberId, String memberName) {
+        orderSummaryRepository.updateMemberName(memberId, memberName);
+    }
+
+    /**
+     * 배송 상태 일괄 변경 반영 (배송 트랜잭션 안에서 호출, bulk UPDATE 는 리스너가 알 수 없다)
+     */
+    @Transactional
+    public void onDeliveryStatusChanged(Collection<Long> orderIds, DeliveryStatus deliveryStatus) {
+        orderSummaryRepository.updateDeliveryStatus(orderIds, deliveryStatus);
+    }
+
+    /**
+     * 한 트랜잭션에서 변경 된 주문 / 배송의 읽기 모델을 다시 계산한다. (OrderSummaryListener 가 커밋 직전에 호출)
+     */
+    @Transactional
+    public void refreshChanges(Set<Long> orderIds, Set<Long> deliveryIds) {
+        Set<Long> changed = new LinkedHashSet<>(orderIds);
+        if (!deliveryIds.isEmpty()) {
+            changed.addAll(orderSummaryRepository.findOrderIdsByDeliveryIds(deliveryIds));
+        }
+        if (!changed.isEmpty()) {
+            refresh(changed);
+        }
+    }
+
+    /**
+     * 주문들의 읽기 모델을 다시 계산한다. (없는 주문이면 읽기 모델도 지운다)
+     */
+    @Transactional
+    public void refresh(Set<Long> orderIds) {
+        List<Long> ids = new ArrayList<>(orderIds);
+        for (int from = 0; from < ids.size(); from += chunkSize) {
+            List<Long> chunk = ids.subList(from, Math.min(from + chunkSize, ids.size()));
+            refreshChunk(chunk);
+            orderSummaryRepository.flush();
+        }
+    }
+
+    /**
+     * 전체 주문으로 읽기 모델 다시 만들기 (chunk 마다 트랜잭션 1개)
+     *
+     * @return 처리한 주문 수
+     */
+    @Transactional(propagation = Propagation.NEVER)
+    public int rebuildAll() {
+        int count = 0;
+        Long lastOrderId = null;
+        while (true) {
+            Long last = lastOrderId;
+            List<Long> ids = transactionTemplate.execute(status -> {
+                List<Long> chunk = orderSummaryRepository.findOrderIds(last, chunkSize);
+                refreshChunk(chunk);
+                orderSummaryRepository.flushAndClear();
+                return chunk;
+            });
+            if (ids.isEmpty()) {
+                return count;
+            }
+            count += ids.size();
+            lastOrderId = ids.get(ids.size() - 1);
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildOnStartup() {
+        if (rebuildOnStartup) {
+            log.info("order summary rebuilt. orders={}", rebuildAll());
+        }
+    }
+
+    private void refreshChunk(List<Long> orderIds) {
+        if (orderIds.isEmpty()) {
+            return;
+        }
+        Map<Long, Order> orders = orderSummaryRepository.findOrders(orderIds).stream()
+                .collect(toMap(Order::getId, Function.identity()));
+        Map<Long, List<OrderItemQueryDto>> orderItems = orderSummaryRepository.findOrderItemMap(orderIds);
+        Map<Long, OrderSummary> summaries = orderSummaryRepository.findAllByOrderIds(orderIds).stream()
+                .collect(toMap(OrderSummary::getOrderId, Function.identity()));
+
+        for (Long orderId : orderIds) {
+            Order order = orders.get(orderId);
+            OrderSummary summary = summaries.get(orderId);
+            if (order == null) {
+                if (summary != null) {
+                    orderSummaryRepository.remove(summary);
+                }
+                continue;
+            }
+            if (summary == null) {
+                summary = new OrderSummary(orderId);
+                orderSummaryRepository.save(summary);
+            }
+            fill(summary, order, orderItems.getOrDefault(orderId, Collections.emptyList()));
+        }
+    }
+
+    private void fill(OrderSummary summary, Order order, List<OrderItemQueryDto> orderItems) {
+        summary.setMemberId(order.getMember().getId());
+        summary.setMemberName(order.getMember().getName());
+        summary.setOrderDate(order.getOrderDate());
+        summary.setStatus(order.getStatus());
+        summary.setDeliveryStatus(order.getDelivery().getStatus());
+        summary.setAddress(order.getDelivery().getAddress());
+        summary.setItemCount(orderItems.size());
+        summary.setTotalPrice(orderItems.stream().mapToLong(oi -> (long) oi.getOrderPrice() * oi.getCount()).sum());
+        try {
+            summary.setOrderItems(objectMapper.writeValueAsString(orderItems));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("주문상품 목록을 JSON 으로 만들 수 없습니다. orderId=" + order.getId(), e);
+        }
+    }
+}
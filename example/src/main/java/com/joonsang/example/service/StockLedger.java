@@ -0,0 +1,354 @@
+package com.joonsang.example.service;
+
+import com.joonsang.example.domain.StockLedgerEntry;
+import com.joonsang.example.exception.NotEnoughStockException;
+import com.joonsang.example.repository.ItemRepository;
+import com.joonsang.example.repository.StockLedgerRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 재고 예약 장부 (메모리)
+ *
+ * - 한정 판매처럼 한 상품에 주문이 몰리면, 조건부 UPDATE 라도 같은 row 에 락이 몰린다. (hot row)
+ * - stock.ledger.enabled = true 이면 재고를 메모리에서 먼저 차감하고, 트랜잭션 커밋 시 상품별 변경량을
+ *   stock_ledger_entry 에 insert 한다. (주문과 함께 커밋 / 롤백, 같은 row 를 UPDATE 하지 않는다)
+ * - stock.ledger.flush-interval-ms 마다 stock_ledger_entry 를 상품별로 합쳐서 item.stock_quantity 에 batch UPDATE 로 반영한다.
+ * - 트랜잭션이 롤백되면 메모리에서 차감한 재고를 돌려준다.
+ * - 재고가 부족하면 Item.removeStock 과 똑같이 NotEnoughStockException 을 던진다.
+ * - 기동 시 남아 있는 변경량(이전 프로세스에서 반영하지 못한 주문 / 취소)을 먼저 반영한다.
+ *   상품 재고는 처음 사용할 때 item.stock_quantity - 반영하지 않은 변경량으로 메모리에 올린다.
+ *
+ * - 주의 : 장부는 프로세스 메모리에 있으므로 애플리케이션을 여러 대 띄우면 사용할 수 없다.
+ * - 주의 : 반영 전까지 DB 의 item.stock_quantity 와 Item 엔티티 재고는 실제보다 많다.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class StockLedger {
+
+    private static final int FLUSH_CHUNK_SIZE = 1000;
+
+    private final ItemRepository itemRepository;
+    private final StockLedgerRepository stockLedgerRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    private final Map<Long, StockCell> cells = new ConcurrentHashMap<>();
+
+    private TransactionTemplate loadTransactionTemplate;
+
+    /** flush 와 재고 적재(DB 재고 - 변경량)가 서로의 중간 상태를 읽지 않도록 한다. */
+    private final Object flushLock = new Object();
+
+    @Value("${stock.ledger.enabled:false}")
+    private boolean enabled;
+
+    @Value("${stock.ledger.stripes:8}")
+    private int stripes;
+
+    @PostConstruct
+    void init() {
+        loadTransactionTemplate = new TransactionTemplate(transactionTemplate.getTransactionManager());
+        loadTransactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        loadTransactionTemplate.setReadOnly(true);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * 재고 예약 (장부를 사용할 때만 호출한다)
+     *
+     * - 메모리에서 차감하고, 커밋 시 변경량을 stock_ledger_entry 에 저장한다.
+     * - 트랜잭션이 롤백되면 차감한 재고를 돌려준다. (커밋 여부를 알 수 없으면 초과 판매하지 않도록 돌려주지 않는다)
+     */
+    public void reserve(Long itemId, int quantity) {
+        if (!enabled) {
+            throw new IllegalStateException("재고 예약 장부를 사용하지 않습니다. (stock.ledger.enabled)");
+        }
+        StockCell cell = cell(itemId);
+        if (!cell.tryReserve(quantity)) {
+            throw new NotEnoughStockException("need more stock");
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            try {
+                transactionTemplate.executeWithoutResult(status -> stockLedgerRepository.save(new StockLedgerEntry(itemId, quantity)));
+            } catch (RuntimeException e) {
+                cell.release(quantity);
+                throw e;
+            }
+            return;
+        }
+        pendingChanges().reserved.merge(itemId, (long) quantity, Long::sum);
+    }
+
+    /**
+     * 예약 일괄 취소 (주문 취소 재고 복구, 상품별 수량 합계)
+     *
+     * - 장부를 사용하지 않으면 상품마다 UPDATE 1번으로 DB 재고를 늘린다. (JDBC batch, Item 엔티티 조회 X)
+     *   주문은 조건부 UPDATE 로 차감하므로 함께 처리되어도 충돌하지 않는다.
+     *   version 도 증가시키므로, Item 엔티티로 재고를 바꾸던 트랜잭션은 낙관적 락 충돌로 실패한다. (재고 덮어쓰기 X)
+     * - 장부를 사용하면 커밋 시 변경량(음수)을 stock_ledger_entry 에 저장하고, 커밋 후에 메모리 장부에 돌려준다.
+     *   (롤백 되면 돌려주지 않는다)
+     *   커밋 후에는 DB 재고를 다시 읽으면 안 되므로(돌려줄 수량이 이미 포함된다) 상품 재고를 지금 메모리에 올려 둔다.
+     */
+    public void releaseAll(Map<Long, Long> quantities) {
+        if (quantities.isEmpty()) {
+            return;
+        }
+        if (!enabled) {
+            // 여러 취소가 동시에 같은 상품들을 변경해도 교착 상태가 되지 않도록 상품 id 순으로 변경한다.
+            Map<Long, Long> deltas = new TreeMap<>();
+            quantities.forEach((itemId, quantity) -> deltas.put(itemId, -quantity));
+            itemRepository.decreaseStocks(deltas);
+            return;
+        }
+        quantities.keySet().forEach(this::cell);
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            transactionTemplate.executeWithoutResult(status ->
+                    quantities.forEach((itemId, quantity) -> stockLedgerRepository.save(new StockLedgerEntry(itemId, -quantity))));
+            quantities.forEach(this::release);
+            return;
+        }
+        PendingChanges pending = pendingChanges();
+        quantities.forEach((itemId, quantity) -> pending.released.merge(itemId, quantity, Long::sum));
+    }
+
+    /**
+     * 상품 재고 칸 (처음 사용할 때 DB 에서 읽어서 올린다)
+     *
+     * - DB 조회를 computeIfAbsent 안에서 하면 같은 bin 의 다른 상품까지 조회가 끝날 때까지 기다린다.
+     *   밖에서 읽고 putIfAbsent 로 넣는다. (동시에 읽었으면 먼저 넣은 칸을 쓴다)
+     */
+    private StockCell cell(Long itemId) {
+        StockCell cell = cells.get(itemId);
+        if (cell != null) {
+            return cell;
+        }
+        StockCell loaded = new StockCell(stripes, loadStock(itemId));
+        StockCell existing = cells.putIfAbsent(itemId, loaded);
+        return existing != null ? existing : loaded;
+    }
+
+    /**
+     * 메모리 장부에 재고를 돌려준다. (커밋 / 롤백 후)
+     *
+     * - 그 사이 장부를 다시 만들었으면(reconcile) 칸이 없다. 이때 DB 에서 다시 읽으면 커밋된 변경량이 이미 포함되어
+     *   두 번 돌려주게 되므로 돌려주지 않는다. (다음 사용 시점의 DB 재고가 맞는 값, 모자라게 잡힐 뿐 초과 판매 X)
+     */
+    private void release(Long itemId, long quantity) {
+        StockCell cell = cells.get(itemId);
+        if (cell != null) {
+            cell.release(quantity);
+        }
+    }
+
+    /**
+     * DB 재고 - 반영하지 않은 변경량
+     *
+     * - 호출한 트랜잭션에 참여하지 않도록 새 트랜잭션(REQUIRES_NEW)에서 커밋된 값만 읽는다.
+     */
+    private long loadStock(Long itemId) {
+        Long stock;
+        synchronized (flushLock) {
+            stock = loadTransactionTemplate.execute(status -> stockLedgerRepository.findAvailableStock(itemId));
+        }
+        if (stock == null) {
+            throw new IllegalArgumentException("존재하지 않는 상품입니다. itemId=" + itemId);
+        }
+        return stock;
+    }
+
+    // 트랜잭션마다 예약 / 취소 수량을 모아 두고, 커밋 직전에 저장 / 완료 후에 메모리 장부를 맞춘다.
+    private PendingChanges pendingChanges() {
+        PendingChanges pending = (PendingChanges) TransactionSynchronizationManager.getResource(this);
+        if (pending == null) {
+            pending = new PendingChanges();
+            TransactionSynchronizationManager.bindResource(this, pending);
+            TransactionSynchronizationManager.registerSynchronization(pending);
+        }
+        return pending;
+    }
+
+    /**
+     * 기동 시 정합성 맞추기
+     *
+     * - 이전 프로세스가 커밋했지만 반영하지 못한 변경량(stock_ledger_entry)을 item.stock_quantity 에 반영한다.
+     * - 메모리 장부를 비우고, 이후 첫 예약 시점에 DB 재고로 다시 만든다.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void reconcile() {
+        if (!enabled) {
+            return;
+        }
+        flush();
+        cells.clear();
+    }
+
+    /**
+     * 반영하지 않은 변경량을 상품별로 합쳐서 DB 에 batch UPDATE 로 반영 (FLUSH_CHUNK_SIZE 건마다 트랜잭션 1개)
+     *
+     * - item.stock_quantity 변경과 stock_ledger_entry 삭제가 함께 커밋되므로, 실패하면 다음 주기에 다시 반영한다.
+     */
+    @Scheduled(fixedDelayString = "${stock.ledger.flush-interval-ms:1000}")
+    public void flush() {
+        if (!enabled) {
+            return;
+        }
+        synchronized (flushLock) {
+            try {
+                int flushed;
+                do {
+                    flushed = transactionTemplate.execute(status -> flushChunk());
+                } while (flushed == FLUSH_CHUNK_SIZE);
+            } catch (RuntimeException e) {
+                log.warn("Stock ledger flush failed.", e);
+            }
+        }
+    }
+
+    private int flushChunk() {
+        List<StockLedgerEntry> entries = stockLedgerRepository.findPending(FLUSH_CHUNK_SIZE);
+        if (entries.isEmpty()) {
+            return 0;
+        }
+        // 여러 취소가 동시에 같은 상품들을 변경해도 교착 상태가 되지 않도록 상품 id 순으로 변경한다.
+        Map<Long, Long> deltas = new TreeMap<>();
+        List<Long> entryIds = new ArrayList<>(entries.size());
+        for (StockLedgerEntry entry : entries) {
+            deltas.merge(entry.getItemId(), entry.getQuantity(), Long::sum);
+            entryIds.add(entry.getId());
+        }
+        deltas.values().removeIf(delta -> delta == 0);
+        if (!deltas.isEmpty()) {
+            itemRepository.decreaseStocks(deltas);
+        }
+        stockLedgerRepository.delete(entryIds);
+        return entries.size();
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        flush();
+    }
+
+    /**
+     * 트랜잭션 하나의 예약 / 취소 수량 (상품별 합계)
+     */
+    private class PendingChanges implements TransactionSynchronization {
+
+        final Map<Long, Long> reserved = new TreeMap<>();
+        final Map<Long, Long> released = new TreeMap<>();
+
+        @Override
+        public void beforeCommit(boolean readOnly) {
+            Map<Long, Long> deltas = new TreeMap<>(reserved);
+            released.forEach((itemId, quantity) -> deltas.merge(itemId, -quantity, Long::sum));
+            deltas.forEach((itemId, delta) -> {
+                if (delta != 0) {
+                    stockLedgerRepository.save(new StockLedgerEntry(itemId, delta));
+                }
+            });
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            TransactionSynchronizationManager.unbindResourceIfPossible(StockLedger.this);
+            if (status == STATUS_COMMITTED) {
+                released.forEach(StockLedger.this::release);
+            } else if (status == STATUS_ROLLED_BACK) {
+                reserved.forEach(StockLedger.this::release);
+            }
+        }
+    }
+
+    /**
+     * 상품 1개의 재고
+     *
+     * - 남은 재고를 여러 칸(stripe)에 나눠 담고, 쓰레드마다 다른 칸에서 CAS 로 차감해서 경합을 줄인다.
+     * - 내 칸이 모자라면 다른 칸을 시도하고, 그래도 모자라면 락을 잡고 모든 칸을 모아서 다시 확인한다.
+     *   (락 안에서는 모든 재고가 칸에 있거나 락을 잡은 쓰레드가 들고 있으므로, 전체 합계로 판단할 수 있다)
+     */
+    static class StockCell {
+
+        private final AtomicLong[] stripes;
+
+        StockCell(int stripeCount, long stock) {
+            stripes = new AtomicLong[stripeCount];
+            for (int i = 0; i < stripeCount; i++) {
+                stripes[i] = new AtomicLong();
+            }
+            distribute(stock);
+        }
+
+        boolean tryReserve(long quantity) {
+            int start = ThreadLocalRandom.current().nextInt(stripes.length);
+            for (int i = 0; i < stripes.length; i++) {
+                if (tryTake(stripes[(start + i) % stripes.length], quantity)) {
+                    return true;
+                }
+            }
+            return reserveSlow(quantity);
+        }
+
+        void release(long quantity) {
+            stripes[ThreadLocalRandom.current().nextInt(stripes.length)].addAndGet(quantity);
+        }
+
+        synchronized long available() {
+            long sum = 0;
+            for (AtomicLong stripe : stripes) {
+                sum += stripe.get();
+            }
+            return sum;
+        }
+
+        private synchronized boolean reserveSlow(long quantity) {
+            long total = 0;
+            for (AtomicLong stripe : stripes) {
+                total += stripe.getAndSet(0);
+            }
+            boolean reserved = total >= quantity;
+            distribute(reserved ? total - quantity : total);
+            return reserved;
+        }
+
+        private void distribute(long stock) {
+            long share = stock / stripes.length;
+            for (int i = 0; i < stripes.length; i++) {
+                stripes[i].addAndGet(i == 0 ? share + stock % stripes.length : share);
+            }
+        }
+
+        private static boolean tryTake(AtomicLong stripe, long quantity) {
+            long current;
+            do {
+                current = stripe.get();
+                if (current < quantity) {
+                    return false;
+                }
+            } while (!stripe.compareAndSet(current, current - quantity));
+            return true;
+        }
+    }
+}
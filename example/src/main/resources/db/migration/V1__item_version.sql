@@ -0,0 +1,6 @@
+-- 상품 낙관적 락 version 컬럼 (Item.version)
+--
+-- - 기존 상품은 0 으로 채운다. version 이 null 이면 Hibernate 가 저장되지 않은(transient) 엔티티로 판단한다.
+-- - 재고 조건부 차감(ItemRepository.decreaseStock) 도 version = version + 1 로 증가시키므로 null 이면 안 된다.
+
+alter table item add column version bigint default 0 not null;
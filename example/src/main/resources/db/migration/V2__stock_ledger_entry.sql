@@ -0,0 +1,15 @@
+-- 재고 예약 장부의 반영하지 않은 변경량 (StockLedgerEntry)
+--
+-- - 주문 / 주문 취소가 커밋할 때 insert 하고, StockLedger.flush 가 item.stock_quantity 에 반영한 뒤 지운다.
+-- - 새 테이블이므로 시퀀스는 1 부터 시작한다. (increment by = id.sequence.increment_size)
+
+create sequence stock_ledger_entry_seq start with 1 increment by 50;
+
+create table stock_ledger_entry (
+    stock_ledger_entry_id bigint not null,
+    item_id bigint not null,
+    quantity bigint not null,
+    primary key (stock_ledger_entry_id)
+);
+
+create index idx_stock_ledger_entry_item on stock_ledger_entry (item_id);
@@ -0,0 +1,13 @@
+-- 엔티티별 시퀀스 (PooledLoSequenceGenerator)
+--
+-- - 기존에는 모든 엔티티가 hibernate_sequence 하나를 사용했다.
+-- - 엔티티마다 기존 최대 id 다음 값부터 시작한다. (pooled-lo 는 시퀀스 값부터 increment by 개의 id 를 사용한다)
+-- - increment by 는 id.sequence.increment_size (기본 50) 와 같아야 한다.
+-- - hibernate_sequence 는 이전 버전으로 되돌릴 때를 위해 남겨 둔다.
+
+create sequence member_seq start with (select coalesce(max(member_id), 0) + 1 from member) increment by 50;
+create sequence orders_seq start with (select coalesce(max(order_id), 0) + 1 from orders) increment by 50;
+create sequence order_item_seq start with (select coalesce(max(order_item_id), 0) + 1 from order_item) increment by 50;
+create sequence delivery_seq start with (select coalesce(max(delivery_id), 0) + 1 from delivery) increment by 50;
+create sequence item_seq start with (select coalesce(max(item_id), 0) + 1 from item) increment by 50;
+create sequence category_seq start with (select coalesce(max(category_id), 0) + 1 from category) increment by 50;
@@ -0,0 +1,7 @@
+-- 회원 이름 유니크 제약 조건 (Member, uk_member_name)
+--
+-- - 중복 가입 검사(MemberService) 와 이름 변경은 이 제약 조건 위반을 "이미 존재하는 회원" 으로 바꾼다.
+-- - 이미 이름이 중복된 회원이 있으면 실패한다. 먼저 아래 쿼리로 확인해서 이름을 정리한 뒤 적용한다.
+--   select name, count(*) from member group by name having count(*) > 1;
+
+alter table member add constraint uk_member_name unique (name);
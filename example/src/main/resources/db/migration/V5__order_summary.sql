@@ -0,0 +1,23 @@
+-- 주문 목록 읽기 모델 (OrderSummary)
+--
+-- - 주문상품 목록(order_items)은 애플리케이션이 JSON 으로 만들기 때문에 SQL 로 채우지 않는다.
+--   적용 후 order.summary.rebuild-on-startup = true 로 한번 기동하면 기존 주문으로 다시 만든다.
+--   (다시 만들기 전까지 /api/v7/orders 에는 기존 주문이 보이지 않는다)
+
+create table order_summary (
+    order_id bigint not null,
+    member_id bigint,
+    member_name varchar(255),
+    order_date timestamp,
+    status varchar(255),
+    delivery_status varchar(255),
+    city varchar(255),
+    street varchar(255),
+    zipcode varchar(255),
+    item_count integer not null,
+    total_price bigint not null,
+    order_items clob,
+    primary key (order_id)
+);
+
+create index idx_order_summary_member on order_summary (member_id);
@@ -0,0 +1,21 @@
+-- 카테고리 Materialized path (Category.path, idx_category_path)
+--
+-- - 최상위 카테고리는 '/', 하위 카테고리는 부모 path + 부모 id + '/' (Category.updatePath 와 같다)
+-- - 최상위부터 재귀로 계산해서 채운다. 최상위에 닿지 않는 카테고리(부모가 순환)가 있으면 not null 에서 실패한다.
+
+alter table category add column path varchar(500);
+
+update category c
+   set path = (with recursive tree(category_id, path) as (
+                   select category_id, cast('/' as varchar(500))
+                     from category
+                    where parent_id is null
+                   union all
+                   select child.category_id, tree.path || child.parent_id || '/'
+                     from category child
+                     join tree on child.parent_id = tree.category_id)
+               select tree.path from tree where tree.category_id = c.category_id);
+
+alter table category alter column path set not null;
+
+create index idx_category_path on category (path);
@@ -0,0 +1,17 @@
+-- 카테고리 - 상품 연결 테이블 기본 키 / 상품 기준 인덱스 (Category.items, idx_category_item_item)
+--
+-- - Category.items 가 Set 이므로 Hibernate 는 (category_id, item_id) 를 기본 키로 만든다.
+--   List 로 매핑했던 기존 테이블에는 기본 키가 없어서 같은 연결이 중복 저장되어 있을 수 있다.
+-- - 중복 연결은 하나만 남기고 지운 뒤 기본 키를 추가한다.
+-- - 상품별 카테고리 조회(ItemRepository.findCategoryMap)는 item_id 로 찾으므로 인덱스를 따로 만든다.
+
+delete from category_item ci
+ where exists (select 1
+                 from category_item dup
+                where dup.category_id = ci.category_id
+                  and dup.item_id = ci.item_id
+                  and dup._rowid_ < ci._rowid_);
+
+alter table category_item add primary key (category_id, item_id);
+
+create index idx_category_item_item on category_item (item_id);
@@ -0,0 +1,82 @@
+package com.joonsang.example.api;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultMatcher;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * 응답 형식 협상 (BinaryFormatConfig)
+ *
+ * - Accept 가 없거나 * / * 이면 JSON, CBOR / Smile 을 요청하면 같은 DTO 를 바이너리로 응답한다.
+ * - V4 / V5 는 produces 가 없는 JSON 핸들러와 CBOR / Smile 핸들러로 나뉘어 있어서, 미디어 타입 정렬에 따라
+ *   * / * 가 바이너리 핸들러로 가지 않는지 확인한다.
+ * - V7 은 저장된 JSON 을 그대로 쓰므로 바이너리 요청은 406
+ * - produces 에 CBOR / Smile 을 선언하지 않은 핸들러도 바이너리 요청은 406
+ */
+@SpringBootTest
+class ContentNegotiationTest {
+
+    private static final String[] BINARY_NEGOTIATED = {"/api/v4/orders", "/api/v5/orders", "/api/v6/orders", "/api/v2/members"};
+    private static final String[] JSON_ONLY = {"/api/v4/simple-orders", "/api/v1/members"};
+
+    @Autowired WebApplicationContext context;
+
+    MockMvc mvc;
+
+    // @AutoConfigureMockMvc 를 붙이면 다른 테스트와 Spring 컨텍스트를 함께 쓰지 못한다.
+    @BeforeEach
+    void setUp() {
+        mvc = MockMvcBuilders.webAppContextSetup(context).build();
+    }
+
+    @Test
+    void Accept_가_없거나_모든_형식이면_JSON() throws Exception {
+        for (String url : BINARY_NEGOTIATED) {
+            expect(get(url), content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON));
+            expect(get(url).accept(MediaType.ALL), content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON));
+            expect(get(url).accept(MediaType.APPLICATION_JSON), content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON));
+        }
+    }
+
+    @Test
+    void CBOR_Smile_을_요청하면_바이너리() throws Exception {
+        for (String url : BINARY_NEGOTIATED) {
+            expect(get(url).accept(MediaType.APPLICATION_CBOR), content().contentTypeCompatibleWith(MediaType.APPLICATION_CBOR));
+            expect(get(url).accept(BinaryFormatConfig.APPLICATION_SMILE), content().contentTypeCompatibleWith(BinaryFormatConfig.APPLICATION_SMILE));
+        }
+    }
+
+    @Test
+    void V7_은_JSON_만_제공한다() throws Exception {
+        expect(get("/api/v7/orders"), content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON));
+        expect(get("/api/v7/orders").accept(MediaType.ALL), content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON));
+        mvc.perform(get("/api/v7/orders").accept(MediaType.APPLICATION_CBOR)).andExpect(status().isNotAcceptable());
+        mvc.perform(get("/api/v7/orders").accept(BinaryFormatConfig.APPLICATION_SMILE)).andExpect(status().isNotAcceptable());
+    }
+
+    @Test
+    void 바이너리를_선언하지_않은_핸들러는_JSON_만_제공한다() throws Exception {
+        for (String url : JSON_ONLY) {
+            expect(get(url).accept(MediaType.ALL), content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON));
+            mvc.perform(get(url).accept(MediaType.APPLICATION_CBOR)).andExpect(status().isNotAcceptable());
+            mvc.perform(get(url).accept(BinaryFormatConfig.APPLICATION_SMILE)).andExpect(status().isNotAcceptable());
+        }
+    }
+
+    private void expect(MockHttpServletRequestBuilder request, ResultMatcher contentType) throws Exception {
+        mvc.perform(request)
+                .andExpect(status().isOk())
+                .andExpect(contentType);
+    }
+}
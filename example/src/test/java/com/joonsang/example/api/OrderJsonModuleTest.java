@@ -0,0 +1,83 @@
+package com.joonsang.example.api;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.joonsang.example.domain.Address;
+import com.joonsang.example.domain.Delivery;
+import com.joonsang.example.domain.Member;
+import com.joonsang.example.domain.Order;
+import com.joonsang.example.domain.OrderItem;
+import com.joonsang.example.domain.OrderStatus;
+import com.joonsang.example.domain.item.Book;
+import com.joonsang.example.dto.OrderFlatDto;
+import com.joonsang.example.dto.OrderItemQueryDto;
+import com.joonsang.example.dto.OrderQueryDto;
+import com.joonsang.example.dto.OrderSimpleQueryDto;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class OrderJsonModuleTest {
+
+    // 스프링 부트 기본 설정과 같이 날짜를 문자열로
+    private final ObjectMapper reflective = Jackson2ObjectMapperBuilder.json()
+            .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+            .build();
+    private final ObjectMapper custom = Jackson2ObjectMapperBuilder.json()
+            .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+            .modulesToInstall(new OrderJsonModule())
+            .build();
+
+    private static final List<LocalDateTime> ORDER_DATES = Arrays.asList(
+            LocalDateTime.of(2021, 1, 2, 3, 4),
+            LocalDateTime.of(2021, 12, 31, 23, 59, 59),
+            LocalDateTime.of(2021, 1, 2, 3, 4, 5, 100_000_000),
+            LocalDateTime.of(2021, 1, 2, 3, 4, 5, 411_160_000),
+            LocalDateTime.of(2021, 1, 2, 3, 4, 5, 123_456_789),
+            LocalDateTime.of(2021, 1, 2, 3, 4, 5, 1_000),
+            LocalDateTime.of(987, 1, 2, 3, 4, 5, 1),
+            LocalDateTime.of(12345, 1, 2, 3, 4, 5));
+
+    @Test
+    void 주문_조회_DTO_는_기본_직렬화와_같은_JSON_을_쓴다() throws Exception {
+        Address address = new Address("서울", "강가 \"1\"", "1111");
+        List<OrderItemQueryDto> items = Arrays.asList(
+                new OrderItemQueryDto(1L, "JPA1 BOOK", 10000, 1),
+                new OrderItemQueryDto(1L, null, 20000, 2));
+
+        for (LocalDateTime orderDate : ORDER_DATES) {
+            OrderQueryDto order = new OrderQueryDto(1L, "userA", orderDate, OrderStatus.ORDER, address);
+            order.setOrderItems(items);
+            assertSameJson(order);
+            assertSameJson(new OrderQueryDto(2L, null, orderDate, null, null, items));
+            assertSameJson(new OrderSimpleQueryDto(1L, "userA", orderDate, OrderStatus.CANCEL, address));
+            assertSameJson(new OrderFlatDto(1L, "userA", orderDate, OrderStatus.ORDER, address, "JPA1 BOOK", 10000, 3));
+        }
+        assertSameJson(new OrderQueryDto(null, null, null, null, null));
+    }
+
+    @Test
+    void 엔티티에서_만든_응답_DTO_는_기본_직렬화와_같은_JSON_을_쓴다() throws Exception {
+        Member member = new Member();
+        member.setName("userA");
+        Delivery delivery = new Delivery();
+        delivery.setAddress(new Address("서울", "1", "1111"));
+        Book book = new Book();
+        book.setName("JPA1 BOOK");
+        book.setStockQuantity(10);
+        Order order = Order.createOrder(member, delivery, OrderItem.createOrderItem(book, 10000, 2));
+        order.setId(1L);
+
+        assertSameJson(new OrderApiController.OrderDto(order));
+        assertSameJson(new OrderSimpleApiController.SimpleOrderDto(order));
+    }
+
+    private void assertSameJson(Object value) throws Exception {
+        assertThat(custom.writeValueAsString(value)).isEqualTo(reflective.writeValueAsString(value));
+    }
+}
@@ -0,0 +1,154 @@
+package com.joonsang.example.repository;
+
+import com.joonsang.example.domain.Category;
+import com.joonsang.example.domain.item.Book;
+import com.joonsang.example.domain.item.Item;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.InvalidDataAccessApiUsageException;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+
+import static java.util.stream.Collectors.toList;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * 카테고리 Materialized path 유지 / 계층 조회
+ *
+ * <pre>
+ *  A ─┬─ B ─── C      E
+ *     └─ D
+ * </pre>
+ */
+@SpringBootTest
+@Transactional
+class CategoryRepositoryTest {
+
+    @Autowired CategoryRepository categoryRepository;
+    @Autowired EntityManager em;
+
+    private Category a, b, c, d, e;
+    private Item item1, item2, item3, item4;
+
+    @BeforeEach
+    void setUp() {
+        a = category("A", null);
+        b = category("B", a);
+        c = category("C", b);
+        d = category("D", a);
+        e = category("E", null);
+
+        item1 = book("ITEM1");
+        item2 = book("ITEM2");
+        item3 = book("ITEM3");
+        item4 = book("ITEM4");
+        a.getItems().add(item1);
+        c.getItems().add(item1);
+        c.getItems().add(item2);
+        d.getItems().add(item3);
+        e.getItems().add(item4);
+
+        em.flush();
+        em.clear();
+    }
+
+    @Test
+    void 저장할_때_부모_기준으로_path_를_계산한다() {
+        assertThat(categoryRepository.findOne(a.getId()).getPath()).isEqualTo("/");
+        assertThat(categoryRepository.findOne(b.getId()).getPath()).isEqualTo("/" + a.getId() + "/");
+        assertThat(categoryRepository.findOne(c.getId()).getPath()).isEqualTo("/" + a.getId() + "/" + b.getId() + "/");
+    }
+
+    @Test
+    void 하위_카테고리_조상_카테고리_하위_상품_조회() {
+        Category root = categoryRepository.findOne(a.getId());
+        Category leaf = categoryRepository.findOne(c.getId());
+
+        assertThat(ids(categoryRepository.findDescendants(root))).containsExactly(b.getId(), d.getId(), c.getId());
+        assertThat(ids(categoryRepository.findSubtree(root))).containsExactly(a.getId(), b.getId(), d.getId(), c.getId());
+        assertThat(ids(categoryRepository.findAncestors(leaf))).containsExactly(a.getId(), b.getId());
+        assertThat(categoryRepository.findAncestors(root)).isEmpty();
+
+        // 자신의 상품 + 하위 카테고리 상품, 중복 제거 (item1 은 A, C 둘 다 속한다)
+        assertThat(itemIds(categoryRepository.findItemsUnder(root)))
+                .containsExactly(item1.getId(), item2.getId(), item3.getId());
+        assertThat(itemIds(categoryRepository.findItemsUnder(categoryRepository.findOne(b.getId()))))
+                .containsExactly(item1.getId(), item2.getId());
+        assertThat(itemIds(categoryRepository.findItemsUnder(leaf))).containsExactly(item1.getId(), item2.getId());
+    }
+
+    @Test
+    void 다른_부모로_옮기면_하위_트리의_path_도_다시_계산한다() {
+        categoryRepository.move(categoryRepository.findOne(b.getId()), categoryRepository.findOne(e.getId()));
+        em.flush();
+        em.clear();
+
+        assertThat(categoryRepository.findOne(c.getId()).getPath()).isEqualTo("/" + e.getId() + "/" + b.getId() + "/");
+        assertThat(ids(categoryRepository.findDescendants(categoryRepository.findOne(e.getId()))))
+                .containsExactly(b.getId(), c.getId());
+        assertThat(ids(categoryRepository.findDescendants(categoryRepository.findOne(a.getId()))))
+                .containsExactly(d.getId());
+        assertThat(itemIds(categoryRepository.findItemsUnder(categoryRepository.findOne(e.getId()))))
+                .containsExactly(item1.getId(), item2.getId(), item4.getId());
+    }
+
+    @Test
+    void 저장되지_않은_카테고리_밑으로는_옮길_수_없다() {
+        Category middle = categoryRepository.findOne(b.getId());
+        Category unsaved = new Category();
+        unsaved.setName("NEW");
+
+        assertThatThrownBy(() -> unsaved.addChildCategory(middle)).isInstanceOf(IllegalStateException.class);
+        // @Repository 의 예외 변환 (IllegalStateException -> InvalidDataAccessApiUsageException)
+        assertThatThrownBy(() -> categoryRepository.move(middle, unsaved)).isInstanceOf(InvalidDataAccessApiUsageException.class);
+        em.flush();
+        em.clear();
+
+        assertThat(categoryRepository.findOne(b.getId()).getPath()).isEqualTo("/" + a.getId() + "/");
+        assertThat(categoryRepository.findOne(c.getId()).getPath()).isEqualTo("/" + a.getId() + "/" + b.getId() + "/");
+    }
+
+    @Test
+    void 자신이나_하위_카테고리_밑으로는_옮길_수_없다() {
+        Category root = categoryRepository.findOne(a.getId());
+        Category middle = categoryRepository.findOne(b.getId());
+        Category leaf = categoryRepository.findOne(c.getId());
+
+        assertThatThrownBy(() -> leaf.addChildCategory(root)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> leaf.addChildCategory(middle)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> middle.addChildCategory(middle)).isInstanceOf(IllegalArgumentException.class);
+        assertThat(leaf.getPath()).isEqualTo("/" + a.getId() + "/" + b.getId() + "/");
+    }
+
+    private Category category(String name, Category parent) {
+        Category category = new Category();
+        category.setName(name);
+        if (parent != null) {
+            parent.addChildCategory(category);
+        }
+        categoryRepository.save(category);
+        return category;
+    }
+
+    private Item book(String name) {
+        Book book = new Book();
+        book.setName(name);
+        book.setPrice(10000);
+        book.setStockQuantity(10);
+        em.persist(book);
+        return book;
+    }
+
+    private static List<Long> ids(List<Category> categories) {
+        return categories.stream().map(Category::getId).collect(toList());
+    }
+
+    private static List<Long> itemIds(List<Item> items) {
+        return items.stream().map(Item::getId).collect(toList());
+    }
+}
@@ -0,0 +1,50 @@
+package com.joonsang.example.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CategoryTreeTest {
+
+    //  1 ─┬─ 2 ─── 4 ─── 7
+    //     └─ 3
+    //  5 ─── 6
+    private final List<Object[]> categories = Arrays.asList(
+            new Object[]{4L, 2L}, new Object[]{1L, null}, new Object[]{6L, 5L}, new Object[]{3L, 1L},
+            new Object[]{7L, 4L}, new Object[]{2L, 1L}, new Object[]{5L, null});
+
+    private final List<Object[]> links = Arrays.asList(
+            new Object[]{7L, 100L}, new Object[]{2L, 100L}, new Object[]{3L, 200L},
+            new Object[]{6L, 300L}, new Object[]{4L, 400L}, new Object[]{99L, 500L});
+
+    private final CategoryTree tree = CategoryTree.build(categories, links);
+
+    @Test
+    void 하위_카테고리와_조상_카테고리() {
+        assertThat(tree.size()).isEqualTo(7);
+        assertThat(tree.getSubtreeIds(1L)).containsExactly(1L, 2L, 4L, 7L, 3L);
+        assertThat(tree.getSubtreeIds(4L)).containsExactly(4L, 7L);
+        assertThat(tree.getChildIds(1L)).containsExactly(2L, 3L);
+        assertThat(tree.getChildIds(7L)).isEmpty();
+        assertThat(tree.getAncestorIds(7L)).containsExactly(1L, 2L, 4L);
+        assertThat(tree.getAncestorIds(5L)).isEmpty();
+        assertThat(tree.isInSubtree(7L, 2L)).isTrue();
+        assertThat(tree.isInSubtree(3L, 2L)).isFalse();
+        assertThat(tree.getSubtreeIds(99L)).isEmpty();
+    }
+
+    @Test
+    void 하위_카테고리에_속한_상품() {
+        assertThat(tree.getItemIdsUnder(1L)).containsExactly(100L, 200L, 400L);
+        assertThat(tree.getItemIdsUnder(4L)).containsExactly(100L, 400L);
+        assertThat(tree.getItemIdsUnder(5L)).containsExactly(300L);
+        assertThat(tree.isItemUnder(100L, 4L)).isTrue();
+        assertThat(tree.isItemUnder(200L, 2L)).isFalse();
+        assertThat(tree.isItemUnder(300L, 1L)).isFalse();
+        assertThat(tree.isItemUnder(500L, 1L)).isFalse();
+        assertThat(CategoryTree.EMPTY.getItemIdsUnder(1L)).isEmpty();
+    }
+}
@@ -0,0 +1,163 @@
+package com.joonsang.example.service;
+
+import com.joonsang.example.domain.Delivery;
+import com.joonsang.example.domain.DeliveryStatus;
+import com.joonsang.example.domain.Member;
+import com.joonsang.example.domain.Order;
+import com.joonsang.example.domain.item.Book;
+import com.joonsang.example.dto.DeliveryStatusChangeResult;
+import com.joonsang.example.repository.DeliveryRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.AutowireCapableBeanFactory;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 배송 상태 일괄 변경
+ *
+ * - READY -> COMP 만 바꾸고, 없는 배송 / 이미 완료된 배송 / 취소된 주문의 배송은 rejectedIds 로 돌려준다.
+ * - UPDATE 에서 빠진 배송도 rejectedIds 로 돌려주고, 주문 읽기 모델은 실제로 바뀐 배송만 갱신한다.
+ */
+@SpringBootTest
+class DeliveryServiceTest {
+
+    private static final Long MISSING_DELIVERY_ID = -1L;
+
+    @Autowired DeliveryService deliveryService;
+    @Autowired OrderService orderService;
+    @Autowired OrderSummaryService orderSummaryService;
+    @Autowired OrderListCache orderListCache;
+    @Autowired ItemService itemService;
+    @Autowired MemberService memberService;
+    @Autowired EntityManager em;
+    @Autowired TransactionTemplate transactionTemplate;
+    @Autowired AutowireCapableBeanFactory beanFactory;
+
+    @Test
+    void 배송_준비_상태만_완료로_바꾸고_나머지는_돌려준다() {
+        List<Long> orderIds = placeOrders("transition-member", 4);
+        List<Long> deliveryIds = deliveryIds(orderIds);
+        deliveryService.changeStatus(deliveryIds.subList(0, 1), DeliveryStatus.COMP);
+        orderService.cancelOrder(orderIds.get(1));
+
+        DeliveryStatusChangeResult result = deliveryService.changeStatus(
+                Arrays.asList(deliveryIds.get(0), deliveryIds.get(1), deliveryIds.get(2), deliveryIds.get(3), MISSING_DELIVERY_ID),
+                DeliveryStatus.COMP);
+
+        assertThat(result.getRequested()).isEqualTo(5);
+        assertThat(result.getChanged()).isEqualTo(2);
+        assertThat(result.getRejectedIds()).containsExactly(deliveryIds.get(0), deliveryIds.get(1), MISSING_DELIVERY_ID);
+        assertThat(deliveryStatuses(deliveryIds)).containsExactly(
+                DeliveryStatus.COMP, DeliveryStatus.READY, DeliveryStatus.COMP, DeliveryStatus.COMP);
+        assertThat(summaryDeliveryStatuses(orderIds)).isEqualTo(deliveryStatuses(deliveryIds));
+    }
+
+    @Test
+    void 준비_상태로는_바꿀_수_없다() {
+        List<Long> deliveryIds = deliveryIds(placeOrders("ready-member", 2));
+
+        DeliveryStatusChangeResult result = deliveryService.changeStatus(deliveryIds, DeliveryStatus.READY);
+
+        assertThat(result.getChanged()).isZero();
+        assertThat(result.getRejectedIds()).containsExactlyElementsOf(deliveryIds);
+    }
+
+    @Test
+    void UPDATE_에서_빠진_배송은_돌려주고_읽기_모델도_바꾸지_않는다() {
+        List<Long> orderIds = placeOrders("lost-member", 3);
+        List<Long> deliveryIds = deliveryIds(orderIds);
+        Long lostId = deliveryIds.get(1);
+
+        // 조회 이후 UPDATE 의 상태 조건에서 빠진 배송 (UPDATE 후 같은 트랜잭션에서 되돌려서 흉내낸다)
+        // @SpyBean 은 Spring 컨텍스트를 새로 만들므로 이 테스트에서만 쓰는 DeliveryService 를 직접 만든다.
+        LostUpdateDeliveryRepository deliveryRepository = beanFactory.createBean(LostUpdateDeliveryRepository.class);
+        deliveryRepository.lose(lostId);
+        DeliveryService lostUpdateService = new DeliveryService(deliveryRepository, orderSummaryService, orderListCache, transactionTemplate);
+        ReflectionTestUtils.setField(lostUpdateService, "bulkChunkSize", 1000);
+
+        DeliveryStatusChangeResult result = lostUpdateService.changeStatus(deliveryIds, DeliveryStatus.COMP);
+
+        assertThat(result.getChanged()).isEqualTo(2);
+        assertThat(result.getRejectedIds()).containsExactly(lostId);
+        assertThat(deliveryStatuses(deliveryIds)).containsExactly(
+                DeliveryStatus.COMP, DeliveryStatus.READY, DeliveryStatus.COMP);
+        assertThat(summaryDeliveryStatuses(orderIds)).isEqualTo(deliveryStatuses(deliveryIds));
+    }
+
+    static class LostUpdateDeliveryRepository extends DeliveryRepository {
+
+        @PersistenceContext EntityManager em;
+        private Long lostId;
+
+        // createBean 이 예외 변환 프록시를 돌려주므로 필드가 아닌 메서드로 넘긴다.
+        void lose(Long deliveryId) {
+            lostId = deliveryId;
+        }
+
+        @Override
+        public int updateStatus(Collection<Long> deliveryIds, Collection<DeliveryStatus> from, DeliveryStatus to) {
+            int updated = super.updateStatus(deliveryIds, from, to);
+            return updated - em.createQuery("update Delivery d set d.status = :ready where d.id = :id")
+                    .setParameter("ready", DeliveryStatus.READY)
+                    .setParameter("id", lostId)
+                    .executeUpdate();
+        }
+    }
+
+    private List<Long> placeOrders(String memberName, int count) {
+        Member member = new Member();
+        member.setName(memberName);
+        Long memberId = memberService.join(member);
+
+        Book book = new Book();
+        book.setName(memberName + " BOOK");
+        book.setPrice(10000);
+        book.setStockQuantity(count);
+        itemService.saveItem(book);
+
+        List<Long> orderIds = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            orderIds.add(orderService.order(memberId, book.getId(), 1));
+        }
+        return orderIds;
+    }
+
+    private List<Long> deliveryIds(List<Long> orderIds) {
+        return transactionTemplate.execute(status -> {
+            List<Long> ids = new ArrayList<>();
+            for (Long orderId : orderIds) {
+                ids.add(em.find(Order.class, orderId).getDelivery().getId());
+            }
+            return ids;
+        });
+    }
+
+    private List<DeliveryStatus> deliveryStatuses(List<Long> deliveryIds) {
+        return transactionTemplate.execute(status -> {
+            List<DeliveryStatus> statuses = new ArrayList<>();
+            for (Long deliveryId : deliveryIds) {
+                statuses.add(em.find(Delivery.class, deliveryId).getStatus());
+            }
+            return statuses;
+        });
+    }
+
+    private List<DeliveryStatus> summaryDeliveryStatuses(List<Long> orderIds) {
+        List<DeliveryStatus> statuses = new ArrayList<>();
+        for (Long orderId : orderIds) {
+            statuses.add(orderSummaryService.findSummary(orderId).get().getDeliveryStatus());
+        }
+        return statuses;
+    }
+}
@@ -0,0 +1,117 @@
+package com.joonsang.example.service;
+
+import com.joonsang.example.domain.item.Book;
+import com.joonsang.example.exception.NotEnoughStockException;
+import org.junit.jupiter.api.Disabled;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.ConcurrencyFailureException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 하나의 상품에 동시 주문이 몰릴 때 재고 차감 스트레스 테스트
+ *
+ * - 요청 수량 합계가 재고보다 많도록 THREADS 개의 쓰레드가 동시에 차감한다.
+ * - 성공한 수량 + 남은 재고 = 처음 재고 이어야 한다. (초과 판매 X)
+ */
+@SpringBootTest
+class ItemServiceTest {
+
+    private static final Logger log = LoggerFactory.getLogger(ItemServiceTest.class);
+
+    private static final int THREADS = 200;
+    private static final int REQUESTS_PER_THREAD = 10;
+    private static final int STOCK = 1000;
+
+    @Autowired ItemService itemService;
+
+    @Test
+    void 조건부_UPDATE_재고_차감_동시성() throws Exception {
+        Long itemId = createBook(STOCK);
+
+        Result result = hammer(() -> itemService.removeStock(itemId, 1));
+
+        assertThat(result.success.get()).isEqualTo(STOCK);
+        assertThat(result.notEnoughStock.get()).isEqualTo(THREADS * REQUESTS_PER_THREAD - STOCK);
+        assertThat(itemService.findOne(itemId).getStockQuantity()).isZero();
+    }
+
+    // H2 1.4.200 은 동시에 실행된 version 조건 UPDATE 를 잃어버리므로 (ItemService.removeStockWithRetry 주의 참고)
+    // 이 테스트는 MySQL / PostgreSQL 같은 DB 에서 실행한다.
+    @Disabled("H2 1.4.200 MVStore 는 동시 version 조건 UPDATE 에서 갱신을 잃어버린다.")
+    @Test
+    void 낙관적_락_재고_차감_동시성() throws Exception {
+        Long itemId = createBook(STOCK);
+
+        Result result = hammer(() -> itemService.removeStockWithRetry(itemId, 1));
+
+        // 재시도 횟수를 넘긴 요청은 실패하지만, 성공한 만큼만 재고가 줄어야 한다.
+        assertThat(result.success.get() + itemService.findOne(itemId).getStockQuantity()).isEqualTo(STOCK);
+        assertThat(result.success.get() + result.notEnoughStock.get() + result.conflict.get())
+                .isEqualTo(THREADS * REQUESTS_PER_THREAD);
+    }
+
+    private Long createBook(int stockQuantity) {
+        Book book = new Book();
+        book.setName("HOT BOOK");
+        book.setPrice(10000);
+        book.setStockQuantity(stockQuantity);
+        itemService.saveItem(book);
+        return book.getId();
+    }
+
+    private Result hammer(Runnable removeStock) throws Exception {
+        Result result = new Result();
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                for (int j = 0; j < REQUESTS_PER_THREAD; j++) {
+                    try {
+                        removeStock.run();
+                        result.success.incrementAndGet();
+                    } catch (NotEnoughStockException e) {
+                        result.notEnoughStock.incrementAndGet();
+                    } catch (ConcurrencyFailureException e) {
+                        result.conflict.incrementAndGet();
+                    }
+                }
+                return null;
+            }));
+        }
+
+        long startNanos = System.nanoTime();
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+        executor.shutdown();
+
+        log.info("threads={}, requests={}, success={}, notEnoughStock={}, conflict={}, elapsed={}ms, throughput={} req/s",
+                THREADS, THREADS * REQUESTS_PER_THREAD, result.success.get(), result.notEnoughStock.get(),
+                result.conflict.get(), elapsedMillis, THREADS * REQUESTS_PER_THREAD * 1000L / Math.max(elapsedMillis, 1));
+        return result;
+    }
+
+    static class Result {
+        final AtomicInteger success = new AtomicInteger();
+        final AtomicInteger notEnoughStock = new AtomicInteger();
+        final AtomicInteger conflict = new AtomicInteger();
+    }
+}
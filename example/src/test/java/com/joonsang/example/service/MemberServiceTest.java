@@ -0,0 +1,94 @@
+package com.joonsang.example.service;
+
+import com.joonsang.example.domain.Member;
+import com.joonsang.example.dto.MemberJoinResult;
+import com.joonsang.example.dto.MemberJoinResult.Status;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static java.util.stream.Collectors.toList;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * 회원가입 / 이름 변경
+ *
+ * - 중복 / 이름 없음 / DB 제약 조건 위반(컬럼 길이)이 섞여 있어도 요청 전체가 실패하지 않고 회원마다 결과를 돌려준다.
+ * - native UPDATE 로 바꾼 이름은 2차 캐시에 남은 이전 이름 대신 조회된다.
+ */
+@SpringBootTest
+class MemberServiceTest {
+
+    @Autowired MemberService memberService;
+    @Autowired TransactionTemplate transactionTemplate;
+
+    @Test
+    void 대량_가입은_실패한_회원만_회원별로_돌려준다() {
+        String tooLong = String.join("", Collections.nCopies(300, "x"));
+        List<MemberJoinResult> results = memberService.joinAll(members("bulk-a", "bulk-a", "", tooLong, "bulk-b").iterator());
+
+        assertThat(results.stream().map(MemberJoinResult::getStatus).collect(toList()))
+                .containsExactly(Status.CREATED, Status.DUPLICATE, Status.INVALID, Status.INVALID, Status.CREATED);
+        assertThat(results.stream().map(MemberJoinResult::getIndex).collect(toList())).containsExactly(0, 1, 2, 3, 4);
+        assertThat(memberService.findOne(results.get(4).getId()).getName()).isEqualTo("bulk-b");
+    }
+
+    @Test
+    void 이름_유니크_제약_위반만_중복_회원으로_바꾼다() {
+        Long first = memberService.join(members("rename-a").get(0));
+        Long second = memberService.join(members("rename-b").get(0));
+
+        assertThatThrownBy(() -> memberService.updateName(second, "rename-a"))
+                .isInstanceOf(IllegalStateException.class);
+        assertThat(memberService.findOne(first).getName()).isEqualTo("rename-a");
+        assertThat(memberService.findOne(second).getName()).isEqualTo("rename-b");
+    }
+
+    @Test
+    void 이름_변경_후_조회하면_변경된_이름을_돌려준다() throws Exception {
+        Long id = memberService.join(members("cached-before").get(0));
+        // 2차 캐시에 올려 둔다.
+        assertThat(memberService.findOne(id).getName()).isEqualTo("cached-before");
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                assertThat(memberService.updateName(id, "cached-after")).isTrue();
+                // 커밋 전에 다른 트랜잭션이 읽은 이전 이름은 캐시에 넣지 않는다.
+                assertThat(read(executor, id)).isEqualTo("cached-before");
+            });
+            assertThat(memberService.findOne(id).getName()).isEqualTo("cached-after");
+            assertThat(read(executor, id)).isEqualTo("cached-after");
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private String read(ExecutorService executor, Long id) {
+        try {
+            return executor.submit(() -> memberService.findOne(id).getName()).get();
+        } catch (InterruptedException | ExecutionException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static List<Member> members(String... names) {
+        List<Member> members = new ArrayList<>();
+        for (String name : Arrays.asList(names)) {
+            Member member = new Member();
+            member.setName(name);
+            members.add(member);
+        }
+        return members;
+    }
+}
@@ -0,0 +1,124 @@
+package com.joonsang.example.service;
+
+import com.joonsang.example.dto.OrderQueryDto;
+import com.joonsang.example.dto.OrderSimpleQueryDto;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+
+import static com.joonsang.example.service.OrderListCache.ORDERS_CACHE;
+import static com.joonsang.example.service.OrderListCache.SIMPLE_ORDERS_CACHE;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * 주문 목록 캐시(OrderListCache) 무효화
+ *
+ * - 조회하는 사이 커밋 된 변경으로 캐시가 비워지면, 그 조회 결과(이전 목록)는 캐시에 넣지 않는다.
+ * - 캐시 된 목록은 요청마다 복사본을 돌려주므로, 한 요청이 바꿔도 다른 요청에 보이지 않는다.
+ * - V5 JSON 바이트 캐시(OrderJsonCache)도 이전 목록으로 채워지지 않는다.
+ */
+@SpringBootTest
+class OrderListCacheTest {
+
+    @Autowired OrderListCache orderListCache;
+    @Autowired OrderJsonCache orderJsonCache;
+    @Autowired TransactionTemplate transactionTemplate;
+
+    @BeforeEach
+    void evictAll() {
+        orderListCache.evictAll();
+    }
+
+    @Test
+    void 조회_중에_커밋되어_비워진_목록은_캐시하지_않는다() {
+        // 조회를 시작한 뒤, 다른 트랜잭션이 주문을 바꾸고 커밋해서 캐시를 비운다.
+        List<OrderSimpleQueryDto> stale = get(() -> {
+            transactionTemplate.executeWithoutResult(status -> orderListCache.evictAfterCommit(1L));
+            return orders("stale");
+        });
+        assertThat(stale).extracting(OrderSimpleQueryDto::getName).containsExactly("stale");
+
+        AtomicInteger loads = new AtomicInteger();
+        assertThat(get(counting(loads, "fresh"))).extracting(OrderSimpleQueryDto::getName).containsExactly("fresh");
+        assertThat(get(counting(loads, "other"))).extracting(OrderSimpleQueryDto::getName).containsExactly("fresh");
+        assertThat(loads).hasValue(1);
+    }
+
+    @Test
+    void 커밋_후에만_비우고_롤백되면_비우지_않는다() {
+        AtomicInteger loads = new AtomicInteger();
+        get(counting(loads, "before"));
+
+        transactionTemplate.executeWithoutResult(status -> {
+            orderListCache.evictAfterCommit(1L);
+            status.setRollbackOnly();
+        });
+        assertThat(get(counting(loads, "rollback"))).extracting(OrderSimpleQueryDto::getName).containsExactly("before");
+
+        transactionTemplate.executeWithoutResult(status -> {
+            orderListCache.evictAfterCommit(1L);
+            // 커밋 전에는 아직 이전 목록
+            assertThat(get(counting(loads, "uncommitted"))).extracting(OrderSimpleQueryDto::getName).containsExactly("before");
+        });
+        assertThat(get(counting(loads, "after"))).extracting(OrderSimpleQueryDto::getName).containsExactly("after");
+        assertThat(loads).hasValue(2);
+    }
+
+    @Test
+    void 캐시된_목록은_요청마다_복사본을_돌려준다() {
+        List<OrderSimpleQueryDto> first = get(() -> orders("original"));
+        first.get(0).setName("changed");
+        assertThatThrownBy(() -> first.add(first.get(0))).isInstanceOf(UnsupportedOperationException.class);
+
+        List<OrderSimpleQueryDto> second = get(() -> orders("reloaded"));
+        assertThat(second).extracting(OrderSimpleQueryDto::getName).containsExactly("original");
+    }
+
+    @Test
+    void 조회_중에_커밋되면_JSON_바이트도_캐시하지_않는다() {
+        // V5 : 버전을 먼저 읽고, 목록 캐시의 목록으로 바이트를 만든다. (OrderApiController.ordersV5)
+        assertThat(v5Json(() -> {
+            transactionTemplate.executeWithoutResult(status -> orderListCache.evictAfterCommit(1L));
+            return orderQueries("stale");
+        })).contains("stale");
+
+        assertThat(v5Json(() -> orderQueries("fresh"))).contains("fresh");
+        assertThat(v5Json(() -> orderQueries("other"))).contains("fresh");
+    }
+
+    private String v5Json(Supplier<List<OrderQueryDto>> loader) {
+        long version = orderJsonCache.version();
+        List<OrderQueryDto> orders = orderListCache.get(ORDERS_CACHE, loader, UnaryOperator.identity());
+        return new String(orderJsonCache.writeArray(orders, version), StandardCharsets.UTF_8);
+    }
+
+    private static List<OrderQueryDto> orderQueries(String name) {
+        return Collections.singletonList(new OrderQueryDto(1L, name, null, null, null, Collections.emptyList()));
+    }
+
+    private List<OrderSimpleQueryDto> get(Supplier<List<OrderSimpleQueryDto>> loader) {
+        return orderListCache.get(SIMPLE_ORDERS_CACHE, loader, OrderSimpleQueryDto::copy);
+    }
+
+    private static Supplier<List<OrderSimpleQueryDto>> counting(AtomicInteger loads, String name) {
+        return () -> {
+            loads.incrementAndGet();
+            return orders(name);
+        };
+    }
+
+    private static List<OrderSimpleQueryDto> orders(String name) {
+        return new ArrayList<>(Collections.singletonList(new OrderSimpleQueryDto(1L, name, null, null, null)));
+    }
+}
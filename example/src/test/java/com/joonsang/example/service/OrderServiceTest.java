@@ -0,0 +1,160 @@
+package com.joonsang.example.service;
+
+import com.joonsang.example.domain.DeliveryStatus;
+import com.joonsang.example.domain.Member;
+import com.joonsang.example.domain.Order;
+import com.joonsang.example.domain.OrderStatus;
+import com.joonsang.example.domain.item.Book;
+import com.joonsang.example.dto.OrderCancelResult;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 주문 취소 동시성 테스트
+ *
+ * - 같은 주문을 동시에 취소해도 재고는 한번만 복구되어야 한다.
+ * - 취소와 배송 완료가 동시에 처리되어도 "취소 + 배송완료" 주문이 생기면 안 된다.
+ * - 주문과 취소가 같은 상품 재고를 동시에 바꿔도 주문이 실패하거나 재고가 틀어지면 안 된다.
+ */
+@SpringBootTest
+class OrderServiceTest {
+
+    private static final int THREADS = 8;
+    private static final int ORDERS = 200;
+    private static final int STOCK = 1000;
+
+    @Autowired OrderService orderService;
+    @Autowired DeliveryService deliveryService;
+    @Autowired ItemService itemService;
+    @Autowired MemberService memberService;
+    @Autowired EntityManager em;
+    @Autowired TransactionTemplate transactionTemplate;
+
+    @Test
+    void 같은_주문을_동시에_취소해도_재고는_한번만_복구된다() throws Exception {
+        Long itemId = createBook("CANCEL BOOK");
+        List<Long> orderIds = placeOrders("cancel-member", itemId);
+        assertThat(itemService.findOne(itemId).getStockQuantity()).isEqualTo(STOCK - ORDERS);
+
+        List<Callable<OrderCancelResult>> tasks = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            tasks.add(() -> orderService.cancelOrders(orderIds));
+        }
+        int cancelled = 0;
+        for (OrderCancelResult result : runConcurrently(tasks)) {
+            cancelled += result.getCancelled();
+        }
+
+        assertThat(cancelled).isEqualTo(ORDERS);
+        assertThat(itemService.findOne(itemId).getStockQuantity()).isEqualTo(STOCK);
+    }
+
+    @Test
+    void 취소와_배송완료가_동시에_처리되어도_둘_중_하나만_반영된다() throws Exception {
+        Long itemId = createBook("DELIVERY BOOK");
+        List<Long> orderIds = placeOrders("delivery-member", itemId);
+        List<Long> deliveryIds = transactionTemplate.execute(status -> {
+            List<Long> ids = new ArrayList<>();
+            for (Long orderId : orderIds) {
+                ids.add(em.find(Order.class, orderId).getDelivery().getId());
+            }
+            return ids;
+        });
+
+        List<Callable<Integer>> tasks = new ArrayList<>();
+        tasks.add(() -> orderService.cancelOrders(orderIds).getCancelled());
+        tasks.add(() -> deliveryService.changeStatus(deliveryIds, DeliveryStatus.COMP).getChanged());
+        List<Integer> results = runConcurrently(tasks);
+
+        assertThat(results.get(0) + results.get(1)).isEqualTo(ORDERS);
+        transactionTemplate.executeWithoutResult(status -> {
+            for (Long orderId : orderIds) {
+                Order order = em.find(Order.class, orderId);
+                assertThat(order.getStatus() == OrderStatus.CANCEL && order.getDelivery().getStatus() == DeliveryStatus.COMP)
+                        .as("orderId=%d", orderId)
+                        .isFalse();
+            }
+        });
+        assertThat(itemService.findOne(itemId).getStockQuantity()).isEqualTo(STOCK - ORDERS + results.get(0));
+    }
+
+    @Test
+    void 주문과_취소가_동시에_재고를_바꿔도_주문은_실패하지_않는다() throws Exception {
+        Long itemId = createBook("PLACE CANCEL BOOK");
+        List<Long> orderIds = placeOrders("place-cancel-member", itemId);
+        Long memberId = transactionTemplate.execute(status -> em.find(Order.class, orderIds.get(0)).getMember().getId());
+
+        int ordersPerThread = ORDERS / THREADS;
+        List<Callable<Integer>> tasks = new ArrayList<>();
+        // 주문을 1건씩 취소해서 재고 복구(version 증가)를 ORDERS 번 일으킨다.
+        tasks.add(() -> {
+            orderIds.forEach(orderService::cancelOrder);
+            return orderIds.size();
+        });
+        for (int i = 1; i < THREADS; i++) {
+            tasks.add(() -> {
+                for (int j = 0; j < ordersPerThread; j++) {
+                    orderService.order(memberId, itemId, 1);
+                }
+                return ordersPerThread;
+            });
+        }
+        runConcurrently(tasks);
+
+        int placed = ordersPerThread * (THREADS - 1);
+        assertThat(itemService.findOne(itemId).getStockQuantity()).isEqualTo(STOCK - placed);
+    }
+
+    private Long createBook(String name) {
+        Book book = new Book();
+        book.setName(name);
+        book.setPrice(10000);
+        book.setStockQuantity(STOCK);
+        itemService.saveItem(book);
+        return book.getId();
+    }
+
+    private List<Long> placeOrders(String memberName, Long itemId) {
+        Member member = new Member();
+        member.setName(memberName);
+        Long memberId = memberService.join(member);
+        List<Long> orderIds = new ArrayList<>();
+        for (int i = 0; i < ORDERS; i++) {
+            orderIds.add(orderService.order(memberId, itemId, 1));
+        }
+        return orderIds;
+    }
+
+    private static <T> List<T> runConcurrently(List<Callable<T>> tasks) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(tasks.size());
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<T>> futures = new ArrayList<>();
+        for (Callable<T> task : tasks) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                return task.call();
+            }));
+        }
+        start.countDown();
+
+        List<T> results = new ArrayList<>();
+        for (Future<T> future : futures) {
+            results.add(future.get());
+        }
+        executor.shutdown();
+        return results;
+    }
+}
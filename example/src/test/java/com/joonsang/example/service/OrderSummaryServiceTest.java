@@ -0,0 +1,100 @@
+package com.joonsang.example.service;
+
+import com.joonsang.example.domain.DeliveryStatus;
+import com.joonsang.example.domain.Member;
+import com.joonsang.example.domain.OrderStatus;
+import com.joonsang.example.domain.item.Book;
+import com.joonsang.example.dto.OrderSummaryDto;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 주문 읽기 모델(order_summary) 갱신
+ *
+ * - 주문 / 취소는 리스너(OrderSummaryListener)가 같은 트랜잭션에서 반영하고, 롤백 되면 함께 롤백 된다.
+ * - 회원 이름 변경은 onMemberRenamed 로 반영한다.
+ */
+@SpringBootTest
+class OrderSummaryServiceTest {
+
+    @Autowired OrderSummaryService orderSummaryService;
+    @Autowired OrderService orderService;
+    @Autowired MemberService memberService;
+    @Autowired ItemService itemService;
+    @Autowired TransactionTemplate transactionTemplate;
+
+    @Test
+    void 기동_중에_저장한_주문도_반영한다() {
+        assertThat(orderSummaryService.findSummaries(null, 1000))
+                .extracting(OrderSummaryDto::getName)
+                .contains("userA", "userB");
+    }
+
+    @Test
+    void 주문하면_반영하고_취소하면_상태를_바꾼다() {
+        Long memberId = join("summary-member");
+        Long itemId = createBook("SUMMARY BOOK", 10000);
+
+        Long orderId = orderService.order(memberId, itemId, 2);
+
+        OrderSummaryDto summary = orderSummaryService.findSummary(orderId).get();
+        assertThat(summary.getName()).isEqualTo("summary-member");
+        assertThat(summary.getOrderStatus()).isEqualTo(OrderStatus.ORDER);
+        assertThat(summary.getDeliveryStatus()).isEqualTo(DeliveryStatus.READY);
+        assertThat(summary.getItemCount()).isEqualTo(1);
+        assertThat(summary.getTotalPrice()).isEqualTo(20000);
+        assertThat(summary.getOrderItems()).contains("SUMMARY BOOK");
+
+        orderService.cancelOrder(orderId);
+
+        assertThat(orderSummaryService.findSummary(orderId).get().getOrderStatus()).isEqualTo(OrderStatus.CANCEL);
+    }
+
+    @Test
+    void 주문이_롤백되면_반영하지_않는다() {
+        Long memberId = join("rollback-summary-member");
+        Long itemId = createBook("ROLLBACK SUMMARY BOOK", 10000);
+
+        AtomicLong orderId = new AtomicLong();
+        transactionTemplate.executeWithoutResult(status -> {
+            orderId.set(orderService.order(memberId, itemId, 1));
+            status.setRollbackOnly();
+        });
+
+        assertThat(orderSummaryService.findSummary(orderId.get())).isEmpty();
+    }
+
+    @Test
+    void 회원_이름을_바꾸면_주문자_이름도_바꾼다() {
+        Long memberId = join("rename-summary-member");
+        Long itemId = createBook("RENAME SUMMARY BOOK", 10000);
+        Long orderId = orderService.order(memberId, itemId, 1);
+
+        memberService.update(memberId, "renamed-by-entity");
+        assertThat(orderSummaryService.findSummary(orderId).get().getName()).isEqualTo("renamed-by-entity");
+
+        memberService.updateName(memberId, "renamed-by-update");
+        assertThat(orderSummaryService.findSummary(orderId).get().getName()).isEqualTo("renamed-by-update");
+    }
+
+    private Long join(String name) {
+        Member member = new Member();
+        member.setName(name);
+        return memberService.join(member);
+    }
+
+    private Long createBook(String name, int price) {
+        Book book = new Book();
+        book.setName(name);
+        book.setPrice(price);
+        book.setStockQuantity(10);
+        itemService.saveItem(book);
+        return book.getId();
+    }
+}
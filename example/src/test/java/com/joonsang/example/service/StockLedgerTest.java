@@ -0,0 +1,62 @@
+package com.joonsang.example.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class StockLedgerTest {
+
+    @Test
+    void 동시에_예약해도_재고보다_많이_예약되지_않는다() throws Exception {
+        int stock = 10_000;
+        StockLedger.StockCell cell = new StockLedger.StockCell(8, stock);
+
+        int threads = 64;
+        int requestsPerThread = 500;
+        AtomicInteger reserved = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            int quantity = i % 3 + 1;
+            futures.add(executor.submit(() -> {
+                start.await();
+                for (int j = 0; j < requestsPerThread; j++) {
+                    if (cell.tryReserve(quantity)) {
+                        reserved.addAndGet(quantity);
+                    }
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+
+        assertThat(reserved.get() + cell.available()).isEqualTo(stock);
+        assertThat(cell.available()).isLessThan(3);
+    }
+
+    @Test
+    void 칸마다_나눠진_재고를_모아서_예약한다() {
+        StockLedger.StockCell cell = new StockLedger.StockCell(8, 10);
+
+        assertThat(cell.tryReserve(9)).isTrue();
+        assertThat(cell.tryReserve(2)).isFalse();
+        assertThat(cell.available()).isEqualTo(1);
+
+        cell.release(5);
+        assertThat(cell.tryReserve(6)).isTrue();
+        assertThat(cell.available()).isZero();
+    }
+}
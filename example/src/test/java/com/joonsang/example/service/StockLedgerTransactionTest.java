@@ -0,0 +1,123 @@
+package com.joonsang.example.service;
+
+import com.joonsang.example.domain.Member;
+import com.joonsang.example.domain.item.Book;
+import com.joonsang.example.dto.OrderLineDto;
+import com.joonsang.example.exception.NotEnoughStockException;
+import com.joonsang.example.repository.ItemRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * 재고 예약 장부(StockLedger)와 트랜잭션
+ *
+ * - 롤백 된 주문의 예약은 장부에 돌려준다.
+ * - 커밋 된 변경량은 stock_ledger_entry 에 남으므로, 반영 전에 재시작해도 잃어버리지 않는다.
+ * - ItemService 의 재고 차감도 장부를 거친다. (DB 재고를 직접 바꾸는 낙관적 락 차감은 쓸 수 없다)
+ */
+@SpringBootTest(properties = {
+        // 장부를 켠 별도 컨텍스트 : 공통 테스트 DB / 2차 캐시와 섞이지 않도록 DB 를 따로 쓰고 2차 캐시는 끈다.
+        "spring.datasource.url=jdbc:h2:mem:stock-ledger;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+        "spring.jpa.properties.hibernate.cache.use_second_level_cache=false",
+        "stock.ledger.enabled=true",
+        "stock.ledger.flush-interval-ms=3600000"
+})
+class StockLedgerTransactionTest {
+
+    private static final int STOCK = 10;
+
+    @Autowired OrderService orderService;
+    @Autowired ItemService itemService;
+    @Autowired MemberService memberService;
+    @Autowired ItemRepository itemRepository;
+    @Autowired StockLedger stockLedger;
+    @Autowired TransactionTemplate transactionTemplate;
+
+    @Test
+    void 주문이_롤백되면_예약한_재고를_돌려준다() {
+        Long memberId = join("rollback-member");
+        Long itemId = createBook("ROLLBACK BOOK");
+
+        // 첫 줄은 예약에 성공하고 둘째 줄에서 재고가 부족해서 전체가 롤백된다.
+        assertThatThrownBy(() -> orderService.orders(Arrays.asList(
+                new OrderLineDto(memberId, itemId, 6), new OrderLineDto(memberId, itemId, 5))))
+                .isInstanceOf(NotEnoughStockException.class);
+
+        assertThat(orderService.orders(Arrays.asList(new OrderLineDto(memberId, itemId, STOCK)))).hasSize(1);
+        assertThatThrownBy(() -> orderService.order(memberId, itemId, 1)).isInstanceOf(NotEnoughStockException.class);
+    }
+
+    @Test
+    void 커밋한_변경량은_반영_전에_재시작해도_남아_있다() {
+        Long memberId = join("restart-member");
+        Long itemId = createBook("RESTART BOOK");
+
+        Long orderId = orderService.order(memberId, itemId, 3);
+        orderService.order(memberId, itemId, 4);
+        orderService.cancelOrder(orderId);
+        assertThat(stockQuantity(itemId)).isEqualTo(STOCK);
+
+        // 재시작 : 남은 변경량을 반영하고 메모리 장부를 다시 만든다.
+        stockLedger.reconcile();
+
+        assertThat(stockQuantity(itemId)).isEqualTo(STOCK - 4);
+        orderService.order(memberId, itemId, STOCK - 4);
+        assertThatThrownBy(() -> orderService.order(memberId, itemId, 1)).isInstanceOf(NotEnoughStockException.class);
+        stockLedger.flush();
+        assertThat(stockQuantity(itemId)).isZero();
+    }
+
+    @Test
+    void 상품_서비스의_재고_차감도_장부를_거친다() {
+        Long itemId = createBook("ITEM SERVICE BOOK");
+
+        itemService.removeStock(itemId, STOCK);
+        assertThat(stockQuantity(itemId)).isEqualTo(STOCK);
+        assertThatThrownBy(() -> itemService.removeStock(itemId, 1)).isInstanceOf(NotEnoughStockException.class);
+        assertThatThrownBy(() -> itemService.removeStockWithRetry(itemId, 1)).isInstanceOf(IllegalStateException.class);
+
+        stockLedger.flush();
+        assertThat(stockQuantity(itemId)).isZero();
+    }
+
+    @Test
+    void 트랜잭션_중에_장부를_다시_만들어도_롤백할_수_있다() {
+        Long memberId = join("reconcile-member");
+        Long itemId = createBook("RECONCILE BOOK");
+
+        transactionTemplate.executeWithoutResult(status -> {
+            orderService.order(memberId, itemId, 3);
+            stockLedger.reconcile();
+            status.setRollbackOnly();
+        });
+
+        orderService.order(memberId, itemId, STOCK);
+        assertThatThrownBy(() -> orderService.order(memberId, itemId, 1)).isInstanceOf(NotEnoughStockException.class);
+    }
+
+    private Long join(String name) {
+        Member member = new Member();
+        member.setName(name);
+        return memberService.join(member);
+    }
+
+    private Long createBook(String name) {
+        Book book = new Book();
+        book.setName(name);
+        book.setPrice(10000);
+        book.setStockQuantity(STOCK);
+        itemService.saveItem(book);
+        return book.getId();
+    }
+
+    private Integer stockQuantity(Long itemId) {
+        return transactionTemplate.execute(status -> itemRepository.findStockQuantity(itemId));
+    }
+}